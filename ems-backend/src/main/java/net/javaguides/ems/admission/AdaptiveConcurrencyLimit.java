@@ -0,0 +1,107 @@
+package net.javaguides.ems.admission;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency-based AIMD limit of one endpoint. Every completed request is compared with the endpoint's own baseline
+// latency, a slow moving average: a sample above tolerance x baseline cuts the limit by 10%, otherwise the limit
+// grows by about one per limit's worth of requests while at least half of it is in use. Slow samples stay out of
+// the baseline, so overload cannot raise the bar it is judged by; only at minLimit, where the latency is what the
+// endpoint costs without contention, do they move it. A non-adaptive limit stays at its initial value, for
+// endpoints such as streams whose duration says nothing about load. Mutated only under the AdmissionLimiter lock;
+// limit and inFlight are volatile for the gauges.
+public class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    // weight of one sample in the baseline, roughly a 500-request window
+    private static final double BASELINE_WEIGHT = 1.0 / 500;
+
+    private final String endpoint;
+    private final RequestPriority priority;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final boolean adaptive;
+
+    private volatile double limit;
+    private volatile int inFlight;
+    private double baselineNanos;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimit(String endpoint, RequestPriority priority, int initialLimit, int minLimit,
+                                    int maxLimit, double latencyTolerance, boolean adaptive) {
+        this.endpoint = endpoint;
+        this.priority = priority;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.adaptive = adaptive;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    boolean hasCapacity() {
+        return inFlight < (int) limit;
+    }
+
+    void acquired() {
+        inFlight++;
+        accepted.increment();
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    void released(long latencyNanos) {
+        int inUse = inFlight;
+        inFlight = inUse - 1;
+        if (!adaptive) {
+            return;
+        }
+        if (baselineNanos == 0) {
+            baselineNanos = latencyNanos;
+            return;
+        }
+        boolean slow = latencyNanos > baselineNanos * latencyTolerance;
+        if (!slow || limit <= minLimit) {
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_WEIGHT;
+        }
+        if (slow) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (inUse * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    double getBaselineNanos() {
+        return baselineNanos;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
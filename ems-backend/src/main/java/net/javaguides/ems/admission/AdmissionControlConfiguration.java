@@ -0,0 +1,24 @@
+package net.javaguides.ems.admission;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Puts AdmissionLimiter in front of EmployeeController; ems.admission.enabled=false turns it off
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "ems.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfiguration implements WebMvcConfigurer {
+
+    private final AdmissionLimiter admissionLimiter;
+
+    public AdmissionControlConfiguration(AdmissionLimiter admissionLimiter) {
+        this.admissionLimiter = admissionLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionInterceptor(admissionLimiter))
+                .addPathPatterns("/api/employees", "/api/employees/**");
+    }
+}
@@ -0,0 +1,43 @@
+package net.javaguides.ems.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Takes a permit before the handler runs and gives it back once the response is complete. The endpoint is the
+// controller method name; for a streamed response such as the export the permit is held across the async
+// dispatch, so the whole stream counts against the limit, though not as a latency sample (adaptive = false).
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionLimiter admissionLimiter;
+
+    public AdmissionInterceptor(AdmissionLimiter admissionLimiter) {
+        this.admissionLimiter = admissionLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        AdmissionPriority admissionPriority = handlerMethod.getMethodAnnotation(AdmissionPriority.class);
+        RequestPriority priority = admissionPriority != null ? admissionPriority.value() : RequestPriority.NORMAL;
+        boolean adaptive = admissionPriority == null || admissionPriority.adaptive();
+        request.setAttribute(PERMIT_ATTRIBUTE,
+                admissionLimiter.acquire(handlerMethod.getMethod().getName(), priority, adaptive));
+        return true;
+    }
+
+    // not called for the dispatch that starts async processing, only once the request is done
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdmissionLimiter.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.release();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package net.javaguides.ems.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.ems.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Admission control in front of the employee API. A request needs room under its endpoint's adaptive limit and
+// under its priority's share of the global budget, which is sized to what the connection pool can serve; SHEDDABLE
+// work is further held to sheddableLimit, a small part of the pool, as it keeps its connection the longest. If
+// there is none it waits at most the max wait of its priority and is then shed with 503 and Retry-After, rather
+// than queueing for up to the Hikari connection-timeout and holding a request thread meanwhile.
+@Component
+public class AdmissionLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final int globalLimit;
+    private final Map<RequestPriority, Integer> classLimits = new EnumMap<>(RequestPriority.class);
+    private final int initialLimit;
+    private final int minLimit;
+    private final double latencyTolerance;
+    private final Duration retryAfter;
+    private final Map<RequestPriority, Long> maxWaitNanos = new EnumMap<>(RequestPriority.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition capacityFreed = lock.newCondition();
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private volatile int globalInFlight;
+
+    @Autowired
+    public AdmissionLimiter(MeterRegistry meterRegistry,
+                            @Value("${ems.admission.global-limit:40}") int globalLimit,
+                            @Value("${ems.admission.sheddable-limit:0}") int sheddableLimit,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                            @Value("${ems.admission.initial-limit:10}") int initialLimit,
+                            @Value("${ems.admission.min-limit:1}") int minLimit,
+                            @Value("${ems.admission.latency-tolerance:2.0}") double latencyTolerance,
+                            @Value("${ems.admission.max-wait.critical:100ms}") Duration criticalMaxWait,
+                            @Value("${ems.admission.max-wait.normal:25ms}") Duration normalMaxWait,
+                            @Value("${ems.admission.max-wait.sheddable:0ms}") Duration sheddableMaxWait,
+                            @Value("${ems.admission.retry-after:1s}") Duration retryAfter) {
+        // unset: a quarter of the pool
+        this(meterRegistry, System::nanoTime, globalLimit,
+                sheddableLimit > 0 ? sheddableLimit : Math.max(1, maximumPoolSize / 4),
+                initialLimit, minLimit, latencyTolerance,
+                Map.of(RequestPriority.CRITICAL, criticalMaxWait,
+                        RequestPriority.NORMAL, normalMaxWait,
+                        RequestPriority.SHEDDABLE, sheddableMaxWait),
+                retryAfter);
+    }
+
+    AdmissionLimiter(MeterRegistry meterRegistry, LongSupplier nanoClock, int globalLimit, int sheddableLimit,
+                     int initialLimit, int minLimit, double latencyTolerance, Map<RequestPriority, Duration> maxWait,
+                     Duration retryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.globalLimit = globalLimit;
+        for (RequestPriority priority : RequestPriority.values()) {
+            classLimits.put(priority, Math.max(1, (int) (globalLimit * priority.getGlobalShare())));
+        }
+        classLimits.merge(RequestPriority.SHEDDABLE, sheddableLimit, Math::min);
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.retryAfter = retryAfter;
+        maxWait.forEach((priority, wait) -> maxWaitNanos.put(priority, wait.toNanos()));
+        Gauge.builder("ems.admission.global.in_flight", this, AdmissionLimiter::getGlobalInFlight)
+                .description("Requests admitted and not yet completed, all endpoints")
+                .register(meterRegistry);
+    }
+
+    public Permit acquire(String endpoint, RequestPriority priority) {
+        return acquire(endpoint, priority, true);
+    }
+
+    // Returns the permit to release when the request completes, or throws ServiceUnavailableException
+    public Permit acquire(String endpoint, RequestPriority priority, boolean adaptive) {
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(endpoint, key -> newLimit(key, priority, adaptive));
+        int globalShare = classLimits.get(priority);
+        long remainingNanos = maxWaitNanos.getOrDefault(priority, 0L);
+        lock.lock();
+        try {
+            while (!limit.hasCapacity() || globalInFlight >= globalShare) {
+                if (remainingNanos <= 0) {
+                    limit.rejected();
+                    throw new ServiceUnavailableException("Too busy to serve " + endpoint + " now", retryAfter);
+                }
+                remainingNanos = capacityFreed.awaitNanos(remainingNanos);
+            }
+            limit.acquired();
+            globalInFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            limit.rejected();
+            throw new ServiceUnavailableException("Too busy to serve " + endpoint + " now", retryAfter);
+        } finally {
+            lock.unlock();
+        }
+        return new Permit(limit, nanoClock.getAsLong());
+    }
+
+    private void release(Permit permit) {
+        long latencyNanos = nanoClock.getAsLong() - permit.startNanos;
+        lock.lock();
+        try {
+            permit.limit.released(latencyNanos);
+            globalInFlight--;
+            capacityFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AdaptiveConcurrencyLimit newLimit(String endpoint, RequestPriority priority, boolean adaptive) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(endpoint, priority, initialLimit, minLimit,
+                globalLimit, latencyTolerance, adaptive);
+        String[] tags = {"endpoint", endpoint, "priority", priority.name().toLowerCase(Locale.ROOT)};
+        Gauge.builder("ems.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("ems.admission.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("ems.admission.requests", limit, AdaptiveConcurrencyLimit::getAcceptedCount)
+                .tags(tags)
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        FunctionCounter.builder("ems.admission.requests", limit, AdaptiveConcurrencyLimit::getRejectedCount)
+                .description("Requests shed with 503")
+                .tags(tags)
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        return limit;
+    }
+
+    public AdaptiveConcurrencyLimit getLimit(String endpoint) {
+        return limits.get(endpoint);
+    }
+
+    // how many requests of this priority may be in flight at once, all endpoints together
+    public int getClassLimit(RequestPriority priority) {
+        return classLimits.get(priority);
+    }
+
+    public int getGlobalInFlight() {
+        return globalInFlight;
+    }
+
+    public final class Permit {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(AdaptiveConcurrencyLimit limit, long startNanos) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+        }
+
+        public void release() {
+            if (!released) {
+                released = true;
+                AdmissionLimiter.this.release(this);
+            }
+        }
+    }
+}
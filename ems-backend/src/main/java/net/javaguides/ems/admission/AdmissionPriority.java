@@ -0,0 +1,17 @@
+package net.javaguides.ems.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Priority class of a controller method; methods without it are NORMAL
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionPriority {
+    RequestPriority value();
+
+    // false for streamed responses: their latency grows with the data and the client, not with load, so the
+    // endpoint keeps a fixed limit instead of adapting to it
+    boolean adaptive() default true;
+}
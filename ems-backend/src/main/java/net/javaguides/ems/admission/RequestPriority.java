@@ -0,0 +1,23 @@
+package net.javaguides.ems.admission;
+
+// Priority classes for admission control. Each class may only take its share of the global in-flight budget,
+// so once SHEDDABLE work has used its part the rest stays free for the cheaper, more important calls. SHEDDABLE
+// gets at most half, and no more than ems.admission.sheddable-limit.
+public enum RequestPriority {
+    // point reads and writes by id
+    CRITICAL(1.0),
+    // bounded pages and searches
+    NORMAL(0.8),
+    // whole-table reads, exports and bulk writes
+    SHEDDABLE(0.5);
+
+    private final double globalShare;
+
+    RequestPriority(double globalShare) {
+        this.globalShare = globalShare;
+    }
+
+    public double getGlobalShare() {
+        return globalShare;
+    }
+}
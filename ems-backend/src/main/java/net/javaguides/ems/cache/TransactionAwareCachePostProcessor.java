@@ -0,0 +1,21 @@
+package net.javaguides.ems.cache;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.stereotype.Component;
+
+// Makes @CacheEvict (and puts) inside a transaction take effect after commit. Evicting before commit lets a
+// concurrent miss reload the old row and cache it for the whole TTL. Outside a transaction caches behave as
+// before. CaffeineCacheManager has no transactionAware switch, so the auto-configured manager is wrapped.
+@Component
+public class TransactionAwareCachePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof CacheManager cacheManager) || bean instanceof TransactionAwareCacheManagerProxy) {
+            return bean;
+        }
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
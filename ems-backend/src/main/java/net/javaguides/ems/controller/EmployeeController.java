@@ -1,14 +1,31 @@
 package net.javaguides.ems.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.AllArgsConstructor;
+import net.javaguides.ems.admission.AdmissionPriority;
+import net.javaguides.ems.admission.RequestPriority;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
 import net.javaguides.ems.dto.EmployeeDto;
-import net.javaguides.ems.entity.Employee;
+import net.javaguides.ems.dto.EmployeeIngestionDto;
 import net.javaguides.ems.service.EmployeeService;
+import net.javaguides.ems.service.impl.EmployeeWriteBehindQueue;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @CrossOrigin("*")
 @AllArgsConstructor
@@ -17,31 +34,150 @@ import java.util.List;
 public class EmployeeController {
 
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private EmployeeService employeeService;
+    private ObjectMapper objectMapper;
+    private EmployeeWriteBehindQueue employeeWriteBehindQueue;
     //Build Rest API
 
     // Post Api
+    // with ems.employee.write-behind.enabled the employee is queued: 202 with a tracking id, 429 when the queue is full
     @PostMapping
-    public ResponseEntity<EmployeeDto> createEmployee(@RequestBody EmployeeDto employeeDto){
+    @AdmissionPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<?> createEmployee(@RequestBody EmployeeDto employeeDto){
+        if (employeeWriteBehindQueue.isEnabled()) {
+            EmployeeIngestionDto ingestion = employeeWriteBehindQueue.submit(employeeDto);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                            .path("/ingestions/{trackingId}")
+                            .buildAndExpand(ingestion.getTrackingId())
+                            .toUri())
+                    .body(ingestion);
+        }
         EmployeeDto savedEmployee = employeeService.createEmployee(employeeDto);
-        return new ResponseEntity<>(savedEmployee, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(EmployeeETags.of(savedEmployee)).body(savedEmployee);
+    }
+
+    // Post Api for creating many employees at once, with a result per item
+    @PostMapping("/batch")
+    @AdmissionPriority(RequestPriority.SHEDDABLE)
+    public ResponseEntity<EmployeeBatchResultDto> createEmployees(@RequestBody List<EmployeeDto> employeeDtos){
+        EmployeeBatchResultDto result = employeeService.createEmployees(employeeDtos);
+        return ResponseEntity.ok(result);
+    }
+
+    // Get Api for the status of a queued create: QUEUED, then CREATED with the employee or FAILED with the reason
+    @GetMapping("/ingestions/{trackingId}")
+    @AdmissionPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<EmployeeIngestionDto> getIngestion(@PathVariable("trackingId") String trackingId){
+        EmployeeIngestionDto ingestion = employeeWriteBehindQueue.getStatus(trackingId);
+        return ResponseEntity.ok(ingestion);
     }
 
 
 
 
     //Get Api
+    // the ETag lets Spring answer If-None-Match with 304 before the body is serialized
     @GetMapping("/{id}")
+    @AdmissionPriority(RequestPriority.CRITICAL)
     public ResponseEntity<EmployeeDto> getEmployeeById(@PathVariable("id") Long employeeId){
         EmployeeDto employeeDto = employeeService.getEmployeeById(employeeId);
-        return ResponseEntity.ok(employeeDto);
+        return ResponseEntity.ok().eTag(EmployeeETags.of(employeeDto)).body(employeeDto);
+    }
+    // Get Api returning only the requested fields: /api/employees/1?fields=id,email
+    // the version is always selected for the ETag and only returned when it was asked for
+    @GetMapping(value = "/{id}", params = "fields")
+    @AdmissionPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<Map<String, Object>> getEmployeeFieldsById(@PathVariable("id") Long employeeId,
+                                                                     @RequestParam("fields") List<String> fields){
+        boolean versionRequested = fields.stream().anyMatch(field -> field.strip().equals("version"));
+        List<String> selected = versionRequested ? fields : Stream.concat(fields.stream(), Stream.of("version")).toList();
+        Map<String, Object> employee = employeeService.getEmployeeFieldsById(employeeId, selected);
+        Long version = (Long) (versionRequested ? employee.get("version") : employee.remove("version"));
+        return ResponseEntity.ok().eTag(EmployeeETags.of(version)).body(employee);
+    }
+    // Get Api for many employees at once: /api/employees?ids=1,2,3
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<EmployeeDto>> getEmployeesByIds(@RequestParam("ids") List<Long> employeeIds){
+        List<EmployeeDto> employees = employeeService.getEmployeesByIds(employeeIds);
+        return ResponseEntity.ok(employees);
     }
     // Get Api for getting all employees as a list
     @GetMapping
+    @AdmissionPriority(RequestPriority.SHEDDABLE)
     public ResponseEntity<List<EmployeeDto>> getAllEmployees(){
         List<EmployeeDto> employees = employeeService.getAllEmployees();
         return ResponseEntity.ok(employees);
     }
+    // Get Api for cursor paging: /api/employees?limit=50&after=<nextCursor>
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDto<EmployeeDto>> getEmployeesPage(@RequestParam(value = "after", required = false) Long afterId,
+                                                                       @RequestParam("limit") int limit){
+        CursorPageDto<EmployeeDto> page = employeeService.getEmployeesAfter(afterId, limit);
+        return ResponseEntity.ok(page);
+    }
+    // Get Api for all employees with only the requested fields: /api/employees?fields=id,email
+    @GetMapping(params = {"fields", "!limit", "!ids"})
+    @AdmissionPriority(RequestPriority.SHEDDABLE)
+    public ResponseEntity<List<Map<String, Object>>> getAllEmployeeFields(@RequestParam("fields") List<String> fields){
+        List<Map<String, Object>> employees = employeeService.getAllEmployeeFields(fields);
+        return ResponseEntity.ok(employees);
+    }
+    // Get Api for cursor paging with only the requested fields
+    @GetMapping(params = {"limit", "fields"})
+    public ResponseEntity<CursorPageDto<Map<String, Object>>> getEmployeeFieldsPage(@RequestParam(value = "after", required = false) Long afterId,
+                                                                                    @RequestParam("limit") int limit,
+                                                                                    @RequestParam("fields") List<String> fields){
+        CursorPageDto<Map<String, Object>> page = employeeService.getEmployeeFieldsAfter(afterId, limit, fields);
+        return ResponseEntity.ok(page);
+    }
+    // Get Api for typeahead search: case-insensitive prefix match on first name, last name or email
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageDto<EmployeeDto>> searchEmployees(@RequestParam("q") String query,
+                                                                      @RequestParam(value = "after", required = false) Long afterId,
+                                                                      @RequestParam(value = "limit", defaultValue = "20") int limit){
+        CursorPageDto<EmployeeDto> page = employeeService.searchEmployees(query, afterId, limit);
+        return ResponseEntity.ok(page);
+    }
+    // Get Api for prefix search with only the requested fields
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<CursorPageDto<Map<String, Object>>> searchEmployeeFields(@RequestParam("q") String query,
+                                                                                   @RequestParam(value = "after", required = false) Long afterId,
+                                                                                   @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                                                   @RequestParam("fields") List<String> fields){
+        CursorPageDto<Map<String, Object>> page = employeeService.searchEmployeeFields(query, afterId, limit, fields);
+        return ResponseEntity.ok(page);
+    }
+    // Get Api for ranked fuzzy search over first name, last name and email, tolerant of typos
+    @GetMapping("/search/fuzzy")
+    public ResponseEntity<List<EmployeeDto>> fuzzySearchEmployees(@RequestParam("q") String query,
+                                                                  @RequestParam(value = "limit", defaultValue = "10") int limit){
+        List<EmployeeDto> employees = employeeService.fuzzySearchEmployees(query, limit);
+        return ResponseEntity.ok(employees);
+    }
+    // Get Api for exporting every employee as newline-delimited JSON, streamed row by row
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @AdmissionPriority(value = RequestPriority.SHEDDABLE, adaptive = false)
+    public ResponseEntity<StreamingResponseBody> exportEmployees(){
+        ObjectWriter writer = objectMapper.writerFor(EmployeeDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+                employeeService.exportEmployees(employeeDto -> {
+                    try {
+                        writer.writeValue(generator, employeeDto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
     //Get Api for getting List of employee with first name
     @GetMapping("/firstName/{firstName}")
     public ResponseEntity<List<EmployeeDto>> getAllEmployeeByFirstName(@PathVariable("firstName") String employeeFirstName){
@@ -50,10 +186,14 @@ public class EmployeeController {
     }
 
     // Build API for update the employee
+    // Only If-Match makes the update conditional (412 when it is stale); a version in the body is ignored.
     @PutMapping("{id}")
-    public ResponseEntity<EmployeeDto> updateEmployee(@PathVariable("id") Long employeeId,@RequestBody EmployeeDto updatedEmployee){
-         EmployeeDto employeeDto = employeeService.updateEmployee(employeeId,updatedEmployee);
-        return  ResponseEntity.ok(employeeDto);
+    @AdmissionPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<EmployeeDto> updateEmployee(@PathVariable("id") Long employeeId,@RequestBody EmployeeDto updatedEmployee,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long expectedVersion = ifMatch != null ? EmployeeETags.ifMatchVersion(ifMatch) : null;
+        EmployeeDto employeeDto = employeeService.updateEmployee(employeeId,updatedEmployee,expectedVersion);
+        return ResponseEntity.ok().eTag(EmployeeETags.of(employeeDto)).body(employeeDto);
     }
 
 
@@ -62,11 +202,22 @@ public class EmployeeController {
 
 
 
+    // Build API for partially updating the employee with a JSON Merge Patch (RFC 7396)
+    @PatchMapping(value = "{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @AdmissionPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<EmployeeDto> patchEmployee(@PathVariable("id") Long employeeId,@RequestBody Map<String, Object> patch,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        EmployeeDto employeeDto = employeeService.patchEmployee(employeeId, patch, ifMatch != null ? EmployeeETags.ifMatchVersion(ifMatch) : null);
+        return ResponseEntity.ok().eTag(EmployeeETags.of(employeeDto)).body(employeeDto);
+    }
+
     //Build Api for delete the employee by it
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteEmployee(@PathVariable("id") Long employeeId){
+    @AdmissionPriority(RequestPriority.CRITICAL)
+    public ResponseEntity<String> deleteEmployee(@PathVariable("id") Long employeeId,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
 
-        employeeService.deleteEmployee(employeeId);
+        employeeService.deleteEmployee(employeeId, ifMatch != null ? EmployeeETags.ifMatchVersion(ifMatch) : null);
         return ResponseEntity.ok("Employee deleted successfully");
     }
 }
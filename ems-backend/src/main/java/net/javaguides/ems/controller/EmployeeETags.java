@@ -0,0 +1,35 @@
+package net.javaguides.ems.controller;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.exception.PreconditionFailedException;
+
+// Strong ETags derived from the employee's optimistic lock version, shared by the servlet and reactive controllers
+public final class EmployeeETags {
+
+    private EmployeeETags() {
+    }
+
+    public static String of(EmployeeDto employeeDto) {
+        return of(employeeDto.getVersion());
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // "*" matches any current version; weak or foreign tags can never match a strong ETag
+    public static Long ifMatchVersion(String ifMatch) {
+        String tag = ifMatch.strip();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // fall through to 412
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not name a version of this employee: " + ifMatch);
+    }
+}
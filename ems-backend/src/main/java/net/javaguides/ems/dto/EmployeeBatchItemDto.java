@@ -0,0 +1,18 @@
+package net.javaguides.ems.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeBatchItemDto {
+    // position of the item in the request body
+    private int index;
+    private boolean created;
+    private EmployeeDto employee;
+    private String error;
+}
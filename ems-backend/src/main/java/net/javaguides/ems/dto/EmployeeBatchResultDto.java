@@ -0,0 +1,18 @@
+package net.javaguides.ems.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeBatchResultDto {
+    private int created;
+    private int rejected;
+    private List<EmployeeBatchItemDto> items;
+}
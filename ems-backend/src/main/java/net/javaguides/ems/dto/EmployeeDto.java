@@ -15,6 +15,7 @@ public class EmployeeDto {
     private String firstName;
     private String lastName;
     private String email;
+    private Long version;
 
 }
 
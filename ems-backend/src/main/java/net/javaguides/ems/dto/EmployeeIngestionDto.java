@@ -0,0 +1,24 @@
+package net.javaguides.ems.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeIngestionDto {
+
+    public enum Status {
+        QUEUED, CREATED, FAILED
+    }
+
+    private String trackingId;
+    private Status status;
+    // set once the employee is CREATED
+    private EmployeeDto employee;
+    // set when the employee FAILED
+    private String error;
+}
@@ -1,20 +1,42 @@
 package net.javaguides.ems.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.util.Locale;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// UPDATE statements list only the columns that actually changed
+@DynamicUpdate
+// (x_lc, id): the prefix search runs one "x_lc like ? and id > ? order by id" keyset query per column
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_first_name_lc_id", columnList = "first_name_lc, id"),
+        @Index(name = "idx_employees_last_name_lc_id", columnList = "last_name_lc, id"),
+        @Index(name = "idx_employees_email_lc_id", columnList = "email_lc, id")
+})
 public class Employee {
+    // pooled sequence (table-emulated on MySQL) so Hibernate can batch inserts; IDENTITY disables batching.
+    // Tables created with IDENTITY get the sequence moved past their ids at startup, see EmployeeIdSequenceInitializer
+    public static final String ID_SEQUENCE = "employees_seq";
+    public static final int ID_ALLOCATION_SIZE = 500;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "first_name")
@@ -25,6 +47,41 @@ public class Employee {
 
     @Column(name = "email_id", nullable = false, unique = true)
     private String email;
+
+    // lower-cased copies backing the indexed, case-insensitive prefix search; kept in sync by normalize()
+    @Setter(AccessLevel.NONE)
+    @Column(name = "first_name_lc")
+    private String firstNameLc;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "last_name_lc")
+    private String lastNameLc;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_lc")
+    private String emailLc;
+
+    // optimistic lock, bumped by every write and exposed to clients as the ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    public Employee(Long id, String firstName, String lastName, String email, Long version) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.version = version;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        firstNameLc = firstName == null ? null : firstName.toLowerCase(Locale.ROOT);
+        lastNameLc = lastName == null ? null : lastName.toLowerCase(Locale.ROOT);
+        emailLc = email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
 }
 
 
@@ -0,0 +1,65 @@
+package net.javaguides.ems.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+// Row behind the jdbc idempotency store (ems.idempotency.store=jdbc)
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String id;
+
+    // SHA-256 of the first request, hex
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "location", length = 2048)
+    private String location;
+
+    @Lob
+    @Column(name = "body", length = 16_777_215)
+    private byte[] body;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // random token of the request holding the reservation; completing or releasing the key requires it, so a
+    // request whose lease ran out cannot touch the row of the retry that took it over
+    @Column(name = "owner_token", length = 36)
+    private String owner;
+
+    // a reservation is always a plain INSERT, so two concurrent claims of a key collide on the primary key
+    // instead of the second one merging into the first
+    @Transient
+    private boolean newKey;
+
+    @Override
+    public boolean isNew() {
+        return newKey;
+    }
+}
@@ -0,0 +1,13 @@
+package net.javaguides.ems.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The unique email constraint refused a create or update; the request itself was well formed
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class DuplicateEmailException extends RuntimeException {
+
+    public DuplicateEmailException(String message){
+        super(message);
+    }
+}
@@ -4,10 +4,28 @@ package net.javaguides.ems.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+// Thrown on every miss, including scraper and stale-cache traffic, so it is cheap to create: no stack trace
+// (the cause of a 404 is never in the stack) and the message is only concatenated when someone reads it.
 @ResponseStatus(value = HttpStatus.NOT_FOUND)
 public class ResourceNotFoundException extends RuntimeException {
+
+    private final String messagePrefix;
+    private final Object key;
+
     public ResourceNotFoundException(String message){
-        super(message);
+        this(message, null);
+    }
+
+    // message is messagePrefix + key, e.g. ("Employee does not exist with the given ID: ", employeeId)
+    public ResourceNotFoundException(String messagePrefix, Object key){
+        super(null, null, false, false);
+        this.messagePrefix = messagePrefix;
+        this.key = key;
+    }
+
+    @Override
+    public String getMessage() {
+        return key == null ? messagePrefix : messagePrefix + key;
     }
 }
 
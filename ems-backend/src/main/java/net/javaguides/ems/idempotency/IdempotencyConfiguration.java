@@ -0,0 +1,44 @@
+package net.javaguides.ems.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.ems.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+
+// ems.idempotency.store picks where Idempotency-Key responses are kept: memory (default) or jdbc
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "ems.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "ems.idempotency.store", havingValue = "memory", matchIfMissing = true)
+    public IdempotencyStore inMemoryIdempotencyStore(@Value("${ems.idempotency.max-keys:100000}") long maxKeys,
+                                                     @Value("${ems.idempotency.ttl:24h}") Duration ttl,
+                                                     @Value("${ems.idempotency.in-flight-lease:1m}") Duration inFlightLease) {
+        return new InMemoryIdempotencyStore(maxKeys, ttl, inFlightLease);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ems.idempotency.store", havingValue = "jdbc")
+    public IdempotencyStore jdbcIdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                                                 @Value("${ems.idempotency.ttl:24h}") Duration ttl,
+                                                 @Value("${ems.idempotency.in-flight-lease:1m}") Duration inFlightLease) {
+        return new JdbcIdempotencyStore(idempotencyKeyRepository, ttl, inFlightLease, Clock.systemUTC());
+    }
+
+    // only the employee write endpoints; the filter itself narrows them down to POST and PUT
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+                                                                       ObjectMapper objectMapper) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore, objectMapper));
+        registration.addUrlPatterns("/api/employees", "/api/employees/*");
+        return registration;
+    }
+}
@@ -0,0 +1,227 @@
+package net.javaguides.ems.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Idempotency-Key support for POST /api/employees and PUT /api/employees/{id}. The first request with a key
+// runs and its response is stored; a retry with the same key and the same request gets that response back
+// without reaching the controller. The same key with a different request is 422, a retry while the first
+// request is still running is 409. 5xx and 429 responses are not stored, so those retries run again.
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // set on replayed responses
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Pattern CREATE = Pattern.compile("/api/employees/?");
+    private static final Pattern UPDATE = Pattern.compile("/api/employees/[^/]+");
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (request.getMethod()) {
+            case "POST" -> !CREATE.matcher(path).matches();
+            case "PUT" -> !UPDATE.matcher(path).matches();
+            default -> true;
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeProblem(request, response, HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        String fingerprint = fingerprint(request, body);
+        // tells this request's reservation apart from a retry's that takes the key over after the lease
+        String owner = UUID.randomUUID().toString();
+        IdempotentResponse stored = idempotencyStore.reserve(key, fingerprint, owner);
+        if (stored != null) {
+            if (!stored.fingerprint().equals(fingerprint)) {
+                writeProblem(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        IDEMPOTENCY_KEY + " was already used for a different request");
+            } else if (!stored.completed()) {
+                writeProblem(request, response, HttpStatus.CONFLICT,
+                        "A request with this " + IDEMPOTENCY_KEY + " is still being processed");
+            } else {
+                replay(stored, response);
+            }
+            return;
+        }
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            int status = cachingResponse.getStatus();
+            if (status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                idempotencyStore.complete(key, owner, new IdempotentResponse(fingerprint, true, status,
+                        cachingResponse.getContentType(), cachingResponse.getHeader(HttpHeaders.ETAG),
+                        cachingResponse.getHeader(HttpHeaders.LOCATION), cachingResponse.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(key, owner);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, stored.etag());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeProblem(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                              String detail) throws IOException {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, detail);
+        problem.setInstance(URI.create(request.getRequestURI()));
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    // method, path, query, If-Match and body: everything that decides what the request does
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // the negotiated headers are part of the request: a replay must not answer a different Accept
+        // with the representation stored for the first one, nor accept a body read with another Content-Type
+        digest.update((request.getMethod() + ' ' + request.getRequestURI() + '?' + orEmpty(request.getQueryString())
+                + '\n' + orEmpty(request.getHeader(HttpHeaders.IF_MATCH))
+                + '\n' + orEmpty(request.getHeader(HttpHeaders.ACCEPT))
+                + '\n' + orEmpty(request.getHeader(HttpHeaders.CONTENT_TYPE))
+                + '\n').getBytes(StandardCharsets.UTF_8));
+        digest.update(body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // the body has already been read for the fingerprint; hand the same bytes to the controller
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the whole body is already in memory, so it is all available as soon as a listener is set
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package net.javaguides.ems.idempotency;
+
+public interface IdempotencyStore {
+    //Claim the key for a request with this fingerprint: null when the caller now owns it, otherwise what
+    //is already stored under it, still in flight or completed. owner is unique to the calling request
+    IdempotentResponse reserve(String key, String fingerprint, String owner);
+    //Store the finished response under a key the caller reserved; a no-op once a retry has taken the key over
+    void complete(String key, String owner, IdempotentResponse response);
+    //Give a reserved key up without a response, so a retry runs the request again; a no-op once taken over
+    void release(String key, String owner);
+}
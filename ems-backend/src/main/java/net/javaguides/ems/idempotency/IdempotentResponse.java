@@ -0,0 +1,11 @@
+package net.javaguides.ems.idempotency;
+
+// What an Idempotency-Key maps to: the fingerprint of the first request and, once it has finished,
+// the response to replay. Only the headers a client acts on are kept.
+public record IdempotentResponse(String fingerprint, boolean completed, int status, String contentType,
+                                 String etag, String location, byte[] body) {
+
+    public static IdempotentResponse inFlight(String fingerprint) {
+        return new IdempotentResponse(fingerprint, false, 0, null, null, null, null);
+    }
+}
@@ -0,0 +1,42 @@
+package net.javaguides.ems.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+
+// Per-instance store: bounded by maxKeys and TTL-evicted. A retry that lands on another instance runs again,
+// use the jdbc store behind a load balancer. Reservations expire after inFlightLease and responses after ttl.
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> responses;
+
+    public InMemoryIdempotencyStore(long maxKeys, Duration ttl, Duration inFlightLease) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(Expiry.<String, Entry>writing(
+                        (key, entry) -> entry.response().completed() ? ttl : inFlightLease))
+                .build();
+    }
+
+    @Override
+    public IdempotentResponse reserve(String key, String fingerprint, String owner) {
+        Entry existing = responses.asMap().putIfAbsent(key, new Entry(owner, IdempotentResponse.inFlight(fingerprint)));
+        return existing == null ? null : existing.response();
+    }
+
+    @Override
+    public void complete(String key, String owner, IdempotentResponse response) {
+        responses.asMap().computeIfPresent(key,
+                (k, entry) -> entry.owner().equals(owner) ? new Entry(owner, response) : entry);
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        responses.asMap().computeIfPresent(key, (k, entry) -> entry.owner().equals(owner) ? null : entry);
+    }
+
+    private record Entry(String owner, IdempotentResponse response) {
+    }
+}
@@ -0,0 +1,91 @@
+package net.javaguides.ems.idempotency;
+
+import net.javaguides.ems.entity.IdempotencyKey;
+import net.javaguides.ems.repository.IdempotencyKeyRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Shared store in the idempotency_keys table, so a retry is recognised by every instance and across restarts.
+// The primary key makes the claim atomic between instances; expired rows are freed on reuse and swept at most
+// once a minute. A reservation only holds for inFlightLease: if its instance dies before completing or releasing
+// it, the next retry after the lease takes the key over and runs the request, instead of getting 409 for the ttl.
+// Completing and releasing are conditional on the owner token, so the request that lost the lease cannot clear or
+// overwrite the key of the retry that took it over.
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration ttl;
+    private final Duration inFlightLease;
+    private final Clock clock;
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    public JdbcIdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository, Duration ttl,
+                                Duration inFlightLease, Clock clock) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttl = ttl;
+        this.inFlightLease = inFlightLease;
+        this.clock = clock;
+    }
+
+    @Override
+    public IdempotentResponse reserve(String key, String fingerprint, String owner) {
+        Instant now = clock.instant();
+        sweepExpired(now);
+        // also a stale reservation whose lease ran out, which is how a key left in flight is taken over
+        idempotencyKeyRepository.deleteExpired(key, now);
+        // retries are answered from this read; only truly concurrent first attempts reach the constraint
+        IdempotentResponse existing = idempotencyKeyRepository.findById(key)
+                .map(JdbcIdempotencyStore::toResponse)
+                .orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        IdempotencyKey reservation = new IdempotencyKey();
+        reservation.setId(key);
+        reservation.setFingerprint(fingerprint);
+        reservation.setOwner(owner);
+        reservation.setExpiresAt(now.plus(inFlightLease));
+        reservation.setNewKey(true);
+        try {
+            idempotencyKeyRepository.saveAndFlush(reservation);
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // claimed by someone else; if that row has just been released, the retry after 409 gets it
+            return idempotencyKeyRepository.findById(key)
+                    .map(JdbcIdempotencyStore::toResponse)
+                    .orElse(IdempotentResponse.inFlight(fingerprint));
+        }
+    }
+
+    @Override
+    public void complete(String key, String owner, IdempotentResponse response) {
+        // one UPDATE, no read; matches nothing once a retry has taken the key over
+        idempotencyKeyRepository.complete(key, owner, response.status(), response.contentType(), response.etag(),
+                response.location(), response.body(), clock.instant().plus(ttl));
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        idempotencyKeyRepository.release(key, owner);
+    }
+
+    private void sweepExpired(Instant now) {
+        long next = nextSweep.get();
+        if (now.toEpochMilli() >= next && nextSweep.compareAndSet(next, now.toEpochMilli() + SWEEP_INTERVAL_MILLIS)) {
+            idempotencyKeyRepository.deleteAllExpired(now);
+        }
+    }
+
+    private static IdempotentResponse toResponse(IdempotencyKey key) {
+        return key.isCompleted()
+                ? new IdempotentResponse(key.getFingerprint(), true, key.getStatus(), key.getContentType(),
+                        key.getEtag(), key.getLocation(), key.getBody())
+                : IdempotentResponse.inFlight(key.getFingerprint());
+    }
+}
@@ -0,0 +1,45 @@
+package net.javaguides.ems.jdbc;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Wraps the pooled DataSource in a datasource-proxy so every JDBC statement passes through the registered
+// QueryExecutionListeners: the slow-query log, plus any listener beans (tests count statements this way).
+// The proxy unwraps to HikariDataSource, so pool metrics and health checks still see the real pool.
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<QueryExecutionListener> listeners;
+    private final boolean enabled;
+    private final Duration slowQueryThreshold;
+    private final boolean logParameters;
+
+    public DataSourceProxyPostProcessor(ObjectProvider<QueryExecutionListener> listeners,
+                                        @Value("${ems.jdbc.proxy.enabled:true}") boolean enabled,
+                                        @Value("${ems.jdbc.slow-query.threshold:500ms}") Duration slowQueryThreshold,
+                                        @Value("${ems.jdbc.slow-query.log-parameters:false}") boolean logParameters) {
+        this.listeners = listeners;
+        this.enabled = enabled;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.logParameters = logParameters;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, dataSource)
+                .listener(new SlowQueryListener(slowQueryThreshold, logParameters));
+        listeners.orderedStream().forEach(builder::listener);
+        return builder.build();
+    }
+}
@@ -0,0 +1,55 @@
+package net.javaguides.ems.jdbc;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import net.javaguides.ems.entity.Employee;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Employee ids used to come from IDENTITY. On an existing schema ddl-auto=update creates employees_seq starting
+// at 1, and the first insert would reuse taken ids, so at startup the sequence is moved past MAX(id) whenever it
+// is behind. Runs after the EntityManagerFactory, i.e. after the schema update, and before any request.
+@Slf4j
+@Component
+public class EmployeeIdSequenceInitializer implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public EmployeeIdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from employees", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // the pooled optimizer hands out the block (value - allocationSize, value], so value must clear MAX(id)
+        long required = maxId + Employee.ID_ALLOCATION_SIZE;
+        SequenceSupport sequenceSupport = dialect.getSequenceSupport();
+        if (sequenceSupport.supportsSequences()) {
+            // a sequence cannot be read without advancing it; the block this skips is only a gap in the ids
+            Long next = jdbcTemplate.queryForObject(
+                    sequenceSupport.getSequenceNextValString(Employee.ID_SEQUENCE), Long.class);
+            if (next != null && next < required) {
+                jdbcTemplate.execute("alter sequence " + Employee.ID_SEQUENCE + " restart with " + required);
+                log.info("Moved {} from {} to {}, past the existing employee ids", Employee.ID_SEQUENCE, next, required);
+            }
+        } else {
+            // table emulation (MySQL): one row holding the next value; compare-and-set in case instances race
+            Long next = jdbcTemplate.queryForObject("select next_val from " + Employee.ID_SEQUENCE, Long.class);
+            if (next != null && next < required) {
+                jdbcTemplate.update("update " + Employee.ID_SEQUENCE + " set next_val = ? where next_val = ?",
+                        required, next);
+                log.info("Moved {} from {} to {}, past the existing employee ids", Employee.ID_SEQUENCE, next, required);
+            }
+        }
+    }
+}
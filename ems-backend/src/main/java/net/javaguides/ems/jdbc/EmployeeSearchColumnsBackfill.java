@@ -0,0 +1,57 @@
+package net.javaguides.ems.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+// Rows written before the lower-cased search columns existed have them null, which hides them from the prefix
+// search and the first-name lookup. At startup they are filled in, a chunk at a time walking the primary key,
+// lower-cased the same way as Employee.normalize(). email_id is not null, so a null email_lc marks such a row.
+// Depends on the EntityManagerFactory so it runs after ddl-auto has added the columns.
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class EmployeeSearchColumnsBackfill implements InitializingBean {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmployeeSearchColumnsBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long afterId = 0;
+        int backfilled = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "select id, first_name, last_name, email_id from employees "
+                            + "where email_lc is null and id > ? order by id limit " + CHUNK_SIZE,
+                    (rs, rowNum) -> new Object[]{rs.getLong(1),
+                            lower(rs.getString(2)), lower(rs.getString(3)), lower(rs.getString(4))},
+                    afterId);
+            if (rows.isEmpty()) {
+                break;
+            }
+            jdbcTemplate.batchUpdate("update employees set first_name_lc = ?, last_name_lc = ?, email_lc = ? "
+                            + "where id = ? and email_lc is null",
+                    rows.stream().map(row -> new Object[]{row[1], row[2], row[3], row[0]}).toList());
+            backfilled += rows.size();
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (backfilled > 0) {
+            log.info("Backfilled the lower-cased search columns of {} employees", backfilled);
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
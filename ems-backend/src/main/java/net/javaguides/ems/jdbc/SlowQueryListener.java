@@ -0,0 +1,64 @@
+package net.javaguides.ems.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.javaguides.ems.service.EmployeeService;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+
+import java.time.Duration;
+import java.util.List;
+
+// Logs statements slower than the threshold with their bind parameters and the EmployeeService method that
+// issued them. The caller is looked up by walking the stack, which only happens once a statement is slow.
+@Slf4j
+public class SlowQueryListener implements QueryExecutionListener {
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final long thresholdMillis;
+    private final boolean logParameters;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    public SlowQueryListener(Duration threshold, boolean logParameters) {
+        this.thresholdMillis = threshold.toMillis();
+        this.logParameters = logParameters;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis || !log.isWarnEnabled()) {
+            return;
+        }
+        String statement = logParameters
+                ? logEntryCreator.getLogEntry(execInfo, queryInfoList, false, true, false)
+                : queryInfoList.stream().map(QueryInfo::getQuery).toList().toString();
+        log.warn("Slow query ({} ms, threshold {} ms) from {}: {}",
+                execInfo.getElapsedTime(), thresholdMillis, callingServiceMethod(), statement);
+    }
+
+    // outermost EmployeeService frame, i.e. the service method that was called rather than a private helper;
+    // lambdas such as lambda$getEmployeeById$0 are reported by their enclosing method
+    static String callingServiceMethod() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> EmployeeService.class.isAssignableFrom(frame.getDeclaringClass()))
+                // skip the CGLIB subclass Spring puts around the service for @Transactional and @Cacheable
+                .filter(frame -> !frame.getClassName().contains("$$"))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + enclosingMethodName(frame.getMethodName()))
+                .orElse("<outside EmployeeService>"));
+    }
+
+    private static String enclosingMethodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            return end > 0 ? methodName.substring("lambda$".length(), end) : methodName;
+        }
+        return methodName;
+    }
+}
@@ -0,0 +1,76 @@
+package net.javaguides.ems.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.javaguides.ems.service.impl.EmployeeBatchLoader;
+import net.javaguides.ems.service.impl.EmployeeServiceImpl;
+import net.javaguides.ems.service.impl.EmployeeWriteBehindQueue;
+import net.javaguides.ems.service.impl.SingleFlight;
+import org.springframework.stereotype.Component;
+
+// Exposes the counters the read coalescers and the write-behind queue already keep; they are sampled at scrape
+// time, not on each call
+@Component
+public class EmployeeLoaderMetrics implements MeterBinder {
+
+    private final EmployeeServiceImpl employeeService;
+    private final EmployeeBatchLoader employeeBatchLoader;
+    private final EmployeeWriteBehindQueue employeeWriteBehindQueue;
+
+    public EmployeeLoaderMetrics(EmployeeServiceImpl employeeService, EmployeeBatchLoader employeeBatchLoader,
+                                 EmployeeWriteBehindQueue employeeWriteBehindQueue) {
+        this.employeeService = employeeService;
+        this.employeeBatchLoader = employeeBatchLoader;
+        this.employeeWriteBehindQueue = employeeWriteBehindQueue;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindSingleFlight(registry, "id", employeeService.getIdLookups());
+        bindSingleFlight(registry, "first_name", employeeService.getFirstNameLookups());
+        FunctionCounter.builder("ems.employee.batch_loader.batches", employeeBatchLoader,
+                        EmployeeBatchLoader::getDispatchedBatchCount)
+                .description("IN queries sent by the id batch loader")
+                .register(registry);
+        FunctionCounter.builder("ems.employee.batch_loader.ids", employeeBatchLoader,
+                        EmployeeBatchLoader::getDispatchedIdCount)
+                .description("Ids resolved through the batch loader")
+                .register(registry);
+        if (employeeWriteBehindQueue.isEnabled()) {
+            bindWriteBehind(registry);
+        }
+    }
+
+    private void bindWriteBehind(MeterRegistry registry) {
+        Gauge.builder("ems.employee.write_behind.queued", employeeWriteBehindQueue,
+                        EmployeeWriteBehindQueue::getQueuedCount)
+                .description("Employees accepted with 202 and not yet written")
+                .register(registry);
+        FunctionCounter.builder("ems.employee.write_behind.submissions", employeeWriteBehindQueue,
+                        EmployeeWriteBehindQueue::getAcceptedCount)
+                .tags("result", "accepted")
+                .register(registry);
+        FunctionCounter.builder("ems.employee.write_behind.submissions", employeeWriteBehindQueue,
+                        EmployeeWriteBehindQueue::getRejectedCount)
+                .description("Submissions answered with 429 because the queue was full")
+                .tags("result", "rejected")
+                .register(registry);
+        FunctionCounter.builder("ems.employee.write_behind.batches", employeeWriteBehindQueue,
+                        EmployeeWriteBehindQueue::getWrittenBatchCount)
+                .description("createEmployees transactions run by the writer")
+                .register(registry);
+    }
+
+    private static void bindSingleFlight(MeterRegistry registry, String lookup, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder("ems.employee.single_flight.calls", singleFlight, SingleFlight::getExecutedCount)
+                .description("Lookups that ran their own query")
+                .tags("lookup", lookup, "result", "executed")
+                .register(registry);
+        FunctionCounter.builder("ems.employee.single_flight.calls", singleFlight, SingleFlight::getCollapsedCount)
+                .description("Lookups that shared another caller's in-flight query")
+                .tags("lookup", lookup, "result", "collapsed")
+                .register(registry);
+    }
+}
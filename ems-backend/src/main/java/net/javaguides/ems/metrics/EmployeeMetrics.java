@@ -0,0 +1,61 @@
+package net.javaguides.ems.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Business-level meters recorded by EmployeeServiceImpl. Every meter is registered up front, so recording on
+// the request path is a single adder increment with no registry lookup or tag allocation.
+@Component
+public class EmployeeMetrics {
+
+    public enum Outcome {
+        FOUND, NOT_FOUND, CREATED, DUPLICATE_EMAIL, UPDATED, DELETED, PRECONDITION_FAILED
+    }
+
+    public enum ListOperation {
+        ALL, PAGE, IDS, FIRST_NAME, SEARCH, FUZZY, EXPORT
+    }
+
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+    private final Map<ListOperation, DistributionSummary> listRows = new EnumMap<>(ListOperation.class);
+
+    public EmployeeMetrics(MeterRegistry meterRegistry) {
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("ems.employee.outcomes")
+                    .description("Employee service calls by result")
+                    .tag("outcome", tagValue(outcome))
+                    .register(meterRegistry));
+        }
+        for (ListOperation operation : ListOperation.values()) {
+            listRows.put(operation, DistributionSummary.builder("ems.employee.list.rows")
+                    .description("Rows returned per list, page or search call")
+                    .baseUnit("rows")
+                    .tag("operation", tagValue(operation))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+
+    public void record(Outcome outcome, int count) {
+        if (count > 0) {
+            outcomes.get(outcome).increment(count);
+        }
+    }
+
+    public void rows(ListOperation operation, int rows) {
+        listRows.get(operation).record(rows);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,28 @@
+package net.javaguides.ems.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+
+// Non-blocking flavour of the employee API: WebFlux on Netty's event loops over R2DBC.
+// Runs as its own application against the same schema, configured by ems-reactive.properties.
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+public class ReactiveEmsApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveEmsApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .properties("spring.config.name=ems-reactive")
+                .run(args);
+    }
+
+    // Tomcat is on the classpath for the servlet application; serve this one from Netty instead
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
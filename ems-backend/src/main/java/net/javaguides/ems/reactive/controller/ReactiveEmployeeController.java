@@ -0,0 +1,116 @@
+package net.javaguides.ems.reactive.controller;
+
+import lombok.AllArgsConstructor;
+import net.javaguides.ems.controller.EmployeeETags;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.reactive.service.ReactiveEmployeeService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// Same routes and semantics as EmployeeController, served without blocking a thread per request
+@CrossOrigin("*")
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/employees")
+public class ReactiveEmployeeController {
+
+    private ReactiveEmployeeService employeeService;
+
+    @PostMapping
+    public Mono<ResponseEntity<EmployeeDto>> createEmployee(@RequestBody EmployeeDto employeeDto){
+        return employeeService.createEmployee(employeeDto)
+                .map(savedEmployee -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(EmployeeETags.of(savedEmployee))
+                        .body(savedEmployee));
+    }
+
+    @PostMapping("/batch")
+    public Mono<EmployeeBatchResultDto> createEmployees(@RequestBody List<EmployeeDto> employeeDtos){
+        return employeeService.createEmployees(employeeDtos);
+    }
+
+    // the ETag lets WebFlux answer If-None-Match with 304 before the body is encoded
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<EmployeeDto>> getEmployeeById(@PathVariable("id") Long employeeId){
+        return employeeService.getEmployeeById(employeeId)
+                .map(employeeDto -> ResponseEntity.ok().eTag(EmployeeETags.of(employeeDto)).body(employeeDto));
+    }
+
+    @GetMapping(params = "ids")
+    public Flux<EmployeeDto> getEmployeesByIds(@RequestParam("ids") List<Long> employeeIds){
+        return employeeService.getEmployeesByIds(employeeIds);
+    }
+
+    // a JSON array, or one object per line with Accept: application/x-ndjson; either way rows are
+    // read from the database only as fast as the client consumes them
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<EmployeeDto> getAllEmployees(){
+        return employeeService.getAllEmployees();
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<CursorPageDto<EmployeeDto>> getEmployeesPage(@RequestParam(value = "after", required = false) Long afterId,
+                                                             @RequestParam("limit") int limit){
+        return employeeService.getEmployeesAfter(afterId, limit);
+    }
+
+    @GetMapping("/search")
+    public Mono<CursorPageDto<EmployeeDto>> searchEmployees(@RequestParam("q") String query,
+                                                            @RequestParam(value = "after", required = false) Long afterId,
+                                                            @RequestParam(value = "limit", defaultValue = "20") int limit){
+        return employeeService.searchEmployees(query, afterId, limit);
+    }
+
+    @GetMapping("/search/fuzzy")
+    public Flux<EmployeeDto> fuzzySearchEmployees(@RequestParam("q") String query,
+                                                  @RequestParam(value = "limit", defaultValue = "10") int limit){
+        return employeeService.fuzzySearchEmployees(query, limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<EmployeeDto> exportEmployees(){
+        return employeeService.getAllEmployees();
+    }
+
+    @GetMapping("/firstName/{firstName}")
+    public Flux<EmployeeDto> getAllEmployeeByFirstName(@PathVariable("firstName") String employeeFirstName){
+        return employeeService.getAllEmployeeByFirstName(employeeFirstName);
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<EmployeeDto>> updateEmployee(@PathVariable("id") Long employeeId,@RequestBody EmployeeDto updatedEmployee,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        // same contract as EmployeeController.updateEmployee
+        Long expectedVersion = ifMatch != null ? EmployeeETags.ifMatchVersion(ifMatch) : null;
+        return employeeService.updateEmployee(employeeId, updatedEmployee, expectedVersion)
+                .map(employeeDto -> employeeDto.getVersion() != null
+                        ? ResponseEntity.ok().eTag(EmployeeETags.of(employeeDto)).body(employeeDto)
+                        : ResponseEntity.ok().body(employeeDto));
+    }
+
+    @PatchMapping(value = "{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<EmployeeDto>> patchEmployee(@PathVariable("id") Long employeeId,@RequestBody Map<String, Object> patch,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long expectedVersion = ifMatch != null ? EmployeeETags.ifMatchVersion(ifMatch) : null;
+        return employeeService.patchEmployee(employeeId, patch, expectedVersion)
+                .map(employeeDto -> ResponseEntity.ok().eTag(EmployeeETags.of(employeeDto)).body(employeeDto));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<String> deleteEmployee(@PathVariable("id") Long employeeId,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long expectedVersion = ifMatch != null ? EmployeeETags.ifMatchVersion(ifMatch) : null;
+        return employeeService.deleteEmployee(employeeId, expectedVersion)
+                .thenReturn("Employee deleted successfully");
+    }
+}
@@ -0,0 +1,36 @@
+package net.javaguides.ems.reactive.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+// On the database it shares with the servlet application this one only reads. Its raw SQL writes would bypass
+// the servlet side's employees cache, second-level cache and trigram index, which would keep serving the old
+// row. Writes answer 405 with Allow: GET, HEAD; ems.reactive.read-only=false for a database of its own.
+@Component
+@ConditionalOnProperty(name = "ems.reactive.read-only", havingValue = "true", matchIfMissing = true)
+public class ReadOnlyWebFilter implements WebFilter {
+
+    private static final Set<HttpMethod> READ_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (READ_METHODS.contains(method) || !exchange.getRequest().getPath().value().startsWith("/api/employees")) {
+            return chain.filter(exchange);
+        }
+        // answered here: Boot's error handler would drop the Allow header of a MethodNotAllowedException
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.METHOD_NOT_ALLOWED);
+        response.getHeaders().setAllow(Set.of(HttpMethod.GET, HttpMethod.HEAD));
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,96 @@
+package net.javaguides.ems.reactive.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hands out employee ids from employees_seq in the same pooled blocks as Hibernate's optimizer,
+// so the servlet and reactive applications can write to one table: a sequence value v owns (v - 500, v].
+@Component
+public class EmployeeIdAllocator {
+
+    // matches the allocationSize of the employees_seq generator on Employee
+    private static final long ALLOCATION_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+    private final String database;
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(new AtomicLong(1), 0));
+
+    public EmployeeIdAllocator(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.database = connectionFactory.getMetadata().getName();
+    }
+
+    public Mono<Long> nextId() {
+        return nextIds(1).map(ids -> ids.get(0));
+    }
+
+    // count ids at once: what is left of the current block, then as many new blocks as the rest needs,
+    // so a batch costs one sequence call per ALLOCATION_SIZE ids
+    public Mono<List<Long>> nextIds(int count) {
+        return Mono.defer(() -> {
+            List<Long> ids = new ArrayList<>(count);
+            Block current = block.get();
+            long first = current.next().getAndAdd(count);
+            for (long id = first; id <= current.hi() && ids.size() < count; id++) {
+                ids.add(id);
+            }
+            int missing = count - ids.size();
+            if (missing == 0) {
+                return Mono.just(ids);
+            }
+            // concurrent callers may each fetch a block; the loser's remainder is skipped, never reused
+            return Flux.range(0, (int) ((missing + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE))
+                    .concatMap(i -> nextHi())
+                    .collectList()
+                    .map(his -> {
+                        for (long hi : his) {
+                            long lo = hi - ALLOCATION_SIZE + 1;
+                            long last = Math.min(hi, lo + (count - ids.size()) - 1);
+                            for (long id = lo; id <= last; id++) {
+                                ids.add(id);
+                            }
+                            block.set(new Block(new AtomicLong(last + 1), hi));
+                        }
+                        return ids;
+                    });
+        });
+    }
+
+    // values up to the allocation size overlap the first block Hibernate takes on a fresh sequence
+    private Mono<Long> nextHi() {
+        return nextSequenceValue()
+                .repeat()
+                .filter(value -> value > ALLOCATION_SIZE)
+                .next();
+    }
+
+    private Mono<Long> nextSequenceValue() {
+        if (database.startsWith("H2")) {
+            return databaseClient.sql("select next value for employees_seq")
+                    .map(row -> row.get(0, Long.class))
+                    .one();
+        }
+        if (database.startsWith("MySQL")) {
+            // MySQL has no sequences; Hibernate emulates employees_seq as a one-row table holding next_val
+            return databaseClient.inConnection(connection ->
+                    Mono.from(connection.createStatement(
+                                    "update employees_seq set next_val = last_insert_id(next_val) + " + ALLOCATION_SIZE)
+                                    .execute())
+                            .flatMap(result -> Mono.from(result.getRowsUpdated()))
+                            .then(Mono.from(connection.createStatement("select last_insert_id()").execute()))
+                            .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Long.class)))));
+        }
+        return Mono.error(new IllegalStateException("No employees_seq support for " + database));
+    }
+
+    private record Block(AtomicLong next, long hi) {
+    }
+}
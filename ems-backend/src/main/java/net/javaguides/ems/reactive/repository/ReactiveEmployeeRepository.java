@@ -0,0 +1,206 @@
+package net.javaguides.ems.reactive.repository;
+
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.Readable;
+import lombok.AllArgsConstructor;
+import net.javaguides.ems.entity.Employee;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// R2DBC access to the employees table owned by the JPA mapping of Employee. Rows are read into
+// Employee so EmployeeMapper can be reused; the lower-cased search columns are written alongside.
+@Repository
+@AllArgsConstructor
+public class ReactiveEmployeeRepository {
+
+    private static final String SELECT = "select id, first_name, last_name, email_id, version from employees ";
+    private static final int FETCH_SIZE = 1000;
+    // rows per multi-row INSERT, eight bind parameters each; one employees_seq block
+    public static final int INSERT_BATCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    // rows are pulled as the subscriber requests them
+    public Flux<Employee> findAll() {
+        return databaseClient.sql(SELECT + "order by id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveEmployeeRepository::toEmployee)
+                .all();
+    }
+
+    public Mono<Employee> findById(Long id) {
+        return databaseClient.sql(SELECT + "where id = :id")
+                .bind("id", id)
+                .map(ReactiveEmployeeRepository::toEmployee)
+                .one();
+    }
+
+    public Flux<Employee> findAllByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(SELECT + "where id in (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveEmployeeRepository::toEmployee)
+                .all();
+    }
+
+    // Same contract as EmployeeRepository.findDtosByFirstName
+    public Flux<Employee> findByFirstName(String firstName) {
+        return databaseClient.sql(SELECT + "where first_name_lc = :firstNameLc and first_name = :firstName")
+                .bind("firstNameLc", firstName.toLowerCase(Locale.ROOT))
+                .bind("firstName", firstName)
+                .map(ReactiveEmployeeRepository::toEmployee)
+                .all();
+    }
+
+    // Keyset page, see EmployeeRepository.findDtosAfter
+    public Flux<Employee> findAfter(Long afterId, int limit) {
+        return databaseClient.sql(SELECT + "where id > :afterId order by id limit :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveEmployeeRepository::toEmployee)
+                .all();
+    }
+
+    // Same contract as EmployeeRepository.searchDtosByPrefix: a keyset query per (x_lc, id) index, merged by UNION
+    public Flux<Employee> searchByPrefix(String prefix, Long afterId, int limit) {
+        return databaseClient.sql("select * from (" + prefixMatches("first_name_lc") + " union "
+                        + prefixMatches("last_name_lc") + " union " + prefixMatches("email_lc") + ") m "
+                        + "order by id limit :limit")
+                .bind("prefix", prefix)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveEmployeeRepository::toEmployee)
+                .all();
+    }
+
+    private static String prefixMatches(String column) {
+        return "(" + SELECT + "where " + column + " like :prefix escape '!' and id > :afterId order by id limit :limit)";
+    }
+
+    // which of the lower-cased emails are taken, compared case-insensitively through the (email_lc, id) index
+    public Flux<String> findEmailLcIn(Collection<String> emailLcs) {
+        return databaseClient.sql("select email_lc from employees where email_lc in (:emailLcs)")
+                .bind("emailLcs", emailLcs)
+                .map(row -> row.get(0, String.class))
+                .all();
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select 1 from employees where id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    // employee must carry its allocated id and initial version
+    public Mono<Employee> insert(Employee employee) {
+        return insertAll(List.of(employee)).thenReturn(employee);
+    }
+
+    // One multi-row INSERT for all employees, which must carry their allocated ids and initial versions;
+    // callers keep it to INSERT_BATCH_SIZE rows
+    public Mono<Long> insertAll(List<Employee> employees) {
+        StringBuilder sql = new StringBuilder("insert into employees "
+                + "(id, first_name, last_name, email_id, first_name_lc, last_name_lc, email_lc, version) values ");
+        Map<String, Object> values = new HashMap<>();
+        for (int row = 0; row < employees.size(); row++) {
+            Employee employee = employees.get(row);
+            sql.append(row == 0 ? "" : ", ")
+                    .append("(:id").append(row).append(", :firstName").append(row).append(", :lastName").append(row)
+                    .append(", :email").append(row).append(", :firstNameLc").append(row)
+                    .append(", :lastNameLc").append(row).append(", :emailLc").append(row)
+                    .append(", :version").append(row).append(')');
+            values.put("id" + row, employee.getId());
+            values.put("version" + row, employee.getVersion());
+            values.putAll(textColumns(employee.getFirstName(), employee.getLastName(), employee.getEmail(),
+                    String.valueOf(row)));
+        }
+        return databaseClient.sql(sql.toString())
+                .bindValues(values)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Single-statement writes as in EmployeeRepository; a null version updates unconditionally
+    public Mono<Long> update(Long id, Long version, String firstName, String lastName, String email) {
+        return databaseClient.sql("update employees set first_name = :firstName, last_name = :lastName, "
+                        + "email_id = :email, first_name_lc = :firstNameLc, last_name_lc = :lastNameLc, "
+                        + "email_lc = :emailLc, version = version + 1 where id = :id"
+                        + (version == null ? "" : " and version = :version"))
+                .bind("id", id)
+                .bindValues(version == null ? Map.of() : Map.of("version", version))
+                .bindValues(textColumns(firstName, lastName, email, ""))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Writes only the given columns (names are trusted, never taken from a request) of the expected version
+    public Mono<Long> updateColumns(Long id, Long version, Map<String, String> columns) {
+        String assignments = columns.keySet().stream()
+                .map(column -> column + " = :" + column)
+                .collect(Collectors.joining(", "));
+        Map<String, Object> values = new LinkedHashMap<>();
+        columns.forEach((column, value) -> values.put(column, text(value)));
+        return databaseClient.sql("update employees set " + assignments
+                        + ", version = version + 1 where id = :id and version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .bindValues(values)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> delete(Long id, Long version) {
+        return databaseClient.sql("delete from employees where id = :id"
+                        + (version == null ? "" : " and version = :version"))
+                .bind("id", id)
+                .bindValues(version == null ? Map.of() : Map.of("version", version))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    // suffix tells apart the rows of a multi-row INSERT
+    private static Map<String, Object> textColumns(String firstName, String lastName, String email, String suffix) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("firstName" + suffix, text(firstName));
+        values.put("lastName" + suffix, text(lastName));
+        values.put("email" + suffix, text(email));
+        values.put("firstNameLc" + suffix, text(lowerCase(firstName)));
+        values.put("lastNameLc" + suffix, text(lowerCase(lastName)));
+        values.put("emailLc" + suffix, text(lowerCase(email)));
+        return values;
+    }
+
+    // typed so a null binds as a NULL varchar
+    private static Parameter text(String value) {
+        return Parameters.in(R2dbcType.VARCHAR, value);
+    }
+
+    private static Employee toEmployee(Readable row) {
+        return new Employee(
+                row.get("id", Long.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("email_id", String.class),
+                row.get("version", Long.class));
+    }
+}
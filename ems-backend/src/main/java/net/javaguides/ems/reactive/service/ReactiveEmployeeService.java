@@ -0,0 +1,39 @@
+package net.javaguides.ems.reactive.service;
+
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// The operations of EmployeeService as non-blocking publishers; see EmployeeService for the contract of each
+public interface ReactiveEmployeeService {
+
+    Mono<EmployeeDto> createEmployee(EmployeeDto employeeDto);
+
+    Mono<EmployeeBatchResultDto> createEmployees(List<EmployeeDto> employeeDtos);
+
+    Mono<EmployeeDto> getEmployeeById(Long employeeId);
+
+    Flux<EmployeeDto> getEmployeesByIds(List<Long> employeeIds);
+
+    Flux<EmployeeDto> getAllEmployeeByFirstName(String employeeFirstName);
+
+    Mono<CursorPageDto<EmployeeDto>> searchEmployees(String query, Long afterId, int limit);
+
+    Flux<EmployeeDto> fuzzySearchEmployees(String query, int limit);
+
+    // every employee ordered by id, emitted as the subscriber requests them
+    Flux<EmployeeDto> getAllEmployees();
+
+    Mono<CursorPageDto<EmployeeDto>> getEmployeesAfter(Long afterId, int limit);
+
+    Mono<EmployeeDto> updateEmployee(Long employeeId, EmployeeDto updatedEmployee, Long expectedVersion);
+
+    Mono<EmployeeDto> patchEmployee(Long employeeId, Map<String, Object> patch, Long expectedVersion);
+
+    Mono<Void> deleteEmployee(Long employeeId, Long expectedVersion);
+}
@@ -0,0 +1,286 @@
+package net.javaguides.ems.reactive.service.impl;
+
+import lombok.AllArgsConstructor;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.entity.Employee;
+import net.javaguides.ems.exception.ResourceNotFoundException;
+import net.javaguides.ems.mapper.EmployeeMapper;
+import net.javaguides.ems.reactive.repository.EmployeeIdAllocator;
+import net.javaguides.ems.reactive.repository.ReactiveEmployeeRepository;
+import net.javaguides.ems.reactive.service.ReactiveEmployeeService;
+import net.javaguides.ems.service.EmployeeRules;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static net.javaguides.ems.reactive.repository.ReactiveEmployeeRepository.lowerCase;
+
+@Service
+@AllArgsConstructor
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private final ReactiveEmployeeRepository employeeRepository;
+    private final EmployeeIdAllocator employeeIdAllocator;
+
+    @Override
+    public Mono<EmployeeDto> createEmployee(EmployeeDto employeeDto) {
+        return Mono.defer(() -> {
+                    EmployeeRules.validateNewEmployee(employeeDto);
+                    return insert(EmployeeMapper.mapToEmployee(employeeDto));
+                })
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> EmployeeRules.duplicateEmail(employeeDto.getEmail()))
+                .map(EmployeeMapper::mapToEmployeeDto);
+    }
+
+    private Mono<Employee> insert(Employee employee) {
+        return employeeIdAllocator.nextId().flatMap(id -> {
+            employee.setId(id);
+            employee.setVersion(0L);
+            return employeeRepository.insert(employee);
+        });
+    }
+
+    @Override
+    @Transactional
+    public Mono<EmployeeBatchResultDto> createEmployees(List<EmployeeDto> employeeDtos) {
+        // Mono.defer turns the rules' exceptions into error signals
+        return Mono.defer(() -> {
+            EmployeeRules.validateBatchSize(employeeDtos.size());
+            return findTakenEmails(employeeDtos);
+        }).flatMap(takenEmails -> {
+            List<EmployeeBatchItemDto> items = new ArrayList<>(employeeDtos.size());
+            Map<EmployeeBatchItemDto, Employee> pending = new LinkedHashMap<>();
+            for (int index = 0; index < employeeDtos.size(); index++) {
+                EmployeeDto employeeDto = employeeDtos.get(index);
+                String rejection = EmployeeRules.batchItemRejection(employeeDto, takenEmails);
+                if (rejection != null) {
+                    items.add(new EmployeeBatchItemDto(index, false, employeeDto, rejection));
+                } else {
+                    EmployeeBatchItemDto item = new EmployeeBatchItemDto(index, true, null, null);
+                    items.add(item);
+                    pending.put(item, EmployeeMapper.mapToEmployee(employeeDto));
+                }
+            }
+            int created = pending.size();
+            List<Employee> employees = new ArrayList<>(pending.values());
+            // one id allocation for the whole batch, then one multi-row INSERT per INSERT_BATCH_SIZE employees
+            return employeeIdAllocator.nextIds(created)
+                    .flatMapMany(ids -> {
+                        List<List<Employee>> chunks = new ArrayList<>();
+                        for (int i = 0; i < created; i++) {
+                            employees.get(i).setId(ids.get(i));
+                            employees.get(i).setVersion(0L);
+                            if (i % ReactiveEmployeeRepository.INSERT_BATCH_SIZE == 0) {
+                                chunks.add(employees.subList(i,
+                                        Math.min(i + ReactiveEmployeeRepository.INSERT_BATCH_SIZE, created)));
+                            }
+                        }
+                        return Flux.fromIterable(chunks);
+                    })
+                    .concatMap(employeeRepository::insertAll)
+                    .then(Mono.fromSupplier(() -> {
+                        pending.forEach((item, employee) -> item.setEmployee(EmployeeMapper.mapToEmployeeDto(employee)));
+                        return new EmployeeBatchResultDto(created, items.size() - created, items);
+                    }));
+        });
+    }
+
+    private Mono<Set<String>> findTakenEmails(List<EmployeeDto> employeeDtos) {
+        List<String> emails = employeeDtos.stream()
+                .map(EmployeeDto::getEmail)
+                .filter(email -> email != null && !email.isBlank())
+                .map(email -> email.toLowerCase(Locale.ROOT))
+                .distinct()
+                .toList();
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < emails.size(); from += EmployeeRules.EMAIL_LOOKUP_CHUNK) {
+            chunks.add(emails.subList(from, Math.min(from + EmployeeRules.EMAIL_LOOKUP_CHUNK, emails.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(employeeRepository::findEmailLcIn)
+                .collect(HashSet::new, Set::add);
+    }
+
+    @Override
+    public Mono<EmployeeDto> getEmployeeById(Long employeeId) {
+        return employeeRepository.findById(employeeId)
+                .map(EmployeeMapper::mapToEmployeeDto)
+                .switchIfEmpty(Mono.error(() -> EmployeeRules.notFound(employeeId)));
+    }
+
+    @Override
+    public Flux<EmployeeDto> getEmployeesByIds(List<Long> employeeIds) {
+        Set<Long> ids = new LinkedHashSet<>(employeeIds);
+        // answer in request order
+        return Flux.defer(() -> {
+                    EmployeeRules.validateIdCount(employeeIds.size());
+                    return employeeRepository.findAllByIdIn(ids);
+                })
+                .collectMap(Employee::getId)
+                .flatMapIterable(employees -> ids.stream()
+                        .map(employees::get)
+                        .filter(Objects::nonNull)
+                        .map(EmployeeMapper::mapToEmployeeDto)
+                        .toList());
+    }
+
+    @Override
+    public Flux<EmployeeDto> getAllEmployeeByFirstName(String employeeFirstName) {
+        return employeeRepository.findByFirstName(employeeFirstName)
+                .map(EmployeeMapper::mapToEmployeeDto)
+                .switchIfEmpty(Flux.error(() ->
+                        new ResourceNotFoundException("No employees found with first name:", employeeFirstName)));
+    }
+
+    @Override
+    public Mono<CursorPageDto<EmployeeDto>> searchEmployees(String query, Long afterId, int limit) {
+        int pageSize = EmployeeRules.pageSize(limit);
+        return Flux.defer(() -> {
+                    EmployeeRules.validateSearchQuery(query);
+                    return employeeRepository.searchByPrefix(EmployeeRules.toLikePrefix(query),
+                            afterId == null ? 0L : afterId, pageSize + 1);
+                })
+                .map(EmployeeMapper::mapToEmployeeDto)
+                .collectList()
+                .map(rows -> EmployeeRules.toPage(rows, pageSize, EmployeeDto::getId));
+    }
+
+    // this application keeps no trigram index, so fuzzy search is always answered by the prefix search
+    @Override
+    public Flux<EmployeeDto> fuzzySearchEmployees(String query, int limit) {
+        return searchEmployees(query, null, EmployeeRules.fuzzyResults(limit)).flatMapIterable(CursorPageDto::getContent);
+    }
+
+    @Override
+    public Flux<EmployeeDto> getAllEmployees() {
+        return employeeRepository.findAll().map(EmployeeMapper::mapToEmployeeDto);
+    }
+
+    @Override
+    public Mono<CursorPageDto<EmployeeDto>> getEmployeesAfter(Long afterId, int limit) {
+        int pageSize = EmployeeRules.pageSize(limit);
+        return employeeRepository.findAfter(afterId == null ? 0L : afterId, pageSize + 1)
+                .map(EmployeeMapper::mapToEmployeeDto)
+                .collectList()
+                .map(rows -> EmployeeRules.toPage(rows, pageSize, EmployeeDto::getId));
+    }
+
+    @Override
+    @Transactional
+    public Mono<EmployeeDto> updateEmployee(Long employeeId, EmployeeDto updatedEmployee, Long expectedVersion) {
+        // a PUT replaces every field, so it must satisfy the same rules as a create
+        return Mono.defer(() -> {
+                    EmployeeRules.validateNewEmployee(updatedEmployee);
+                    return employeeRepository.update(employeeId, expectedVersion,
+                            updatedEmployee.getFirstName(),
+                            updatedEmployee.getLastName(),
+                            updatedEmployee.getEmail());
+                })
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> EmployeeRules.duplicateEmail(updatedEmployee.getEmail()))
+                .flatMap(updated -> updated == 0
+                        ? missingOrModified(employeeId, expectedVersion)
+                        : Mono.just(new EmployeeDto(employeeId,
+                                updatedEmployee.getFirstName(),
+                                updatedEmployee.getLastName(),
+                                updatedEmployee.getEmail(),
+                                EmployeeRules.versionAfterWrite(expectedVersion))));
+    }
+
+    @Override
+    @Transactional
+    public Mono<EmployeeDto> patchEmployee(Long employeeId, Map<String, Object> patch, Long expectedVersion) {
+        return employeeRepository.findById(employeeId)
+                .switchIfEmpty(Mono.error(() -> EmployeeRules.notFound(employeeId)))
+                .flatMap(employee -> {
+                    if (EmployeeRules.isStale(expectedVersion, employee.getVersion())) {
+                        return Mono.error(EmployeeRules.modifiedConcurrently(employeeId, expectedVersion));
+                    }
+                    Map<String, String> changedColumns = applyPatch(employee, patch);
+                    if (changedColumns.isEmpty()) {
+                        return Mono.just(employee);
+                    }
+                    return employeeRepository.updateColumns(employeeId, employee.getVersion(), changedColumns)
+                            .flatMap(updated -> {
+                                if (updated == 0) {
+                                    return Mono.error(EmployeeRules.modifiedConcurrently(employeeId));
+                                }
+                                employee.setVersion(employee.getVersion() + 1);
+                                return Mono.just(employee);
+                            });
+                })
+                .map(EmployeeMapper::mapToEmployeeDto);
+    }
+
+    // JSON Merge Patch onto the loaded row; returns the columns whose value actually changed
+    private static Map<String, String> applyPatch(Employee employee, Map<String, Object> patch) {
+        Map<String, String> changedColumns = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> change : patch.entrySet()) {
+            switch (change.getKey()) {
+                case "firstName" -> {
+                    String firstName = EmployeeRules.requireLength(EmployeeRules.patchText(change));
+                    if (!Objects.equals(firstName, employee.getFirstName())) {
+                        employee.setFirstName(firstName);
+                        changedColumns.put("first_name", firstName);
+                        changedColumns.put("first_name_lc", lowerCase(firstName));
+                    }
+                }
+                case "lastName" -> {
+                    String lastName = EmployeeRules.requireLength(EmployeeRules.patchText(change));
+                    if (!Objects.equals(lastName, employee.getLastName())) {
+                        employee.setLastName(lastName);
+                        changedColumns.put("last_name", lastName);
+                        changedColumns.put("last_name_lc", lowerCase(lastName));
+                    }
+                }
+                case "email" -> {
+                    String email = EmployeeRules.requireEmail(EmployeeRules.patchText(change));
+                    if (!email.equals(employee.getEmail())) {
+                        employee.setEmail(email);
+                        changedColumns.put("email_id", email);
+                        changedColumns.put("email_lc", lowerCase(email));
+                    }
+                }
+                default -> {
+                    if (!EmployeeRules.isIgnoredPatchField(change.getKey())) {
+                        throw EmployeeRules.unknownPatchField(change.getKey());
+                    }
+                }
+            }
+        }
+        return changedColumns;
+    }
+
+    @Override
+    public Mono<Void> deleteEmployee(Long employeeId, Long expectedVersion) {
+        return employeeRepository.delete(employeeId, expectedVersion)
+                .flatMap(deleted -> deleted == 0
+                        ? missingOrModified(employeeId, expectedVersion)
+                        : Mono.empty())
+                .then();
+    }
+
+    // a conditional write matched no row: either the employee is gone or someone else changed it first
+    private <T> Mono<T> missingOrModified(Long employeeId, Long expectedVersion) {
+        Mono<Boolean> exists = expectedVersion == null ? Mono.just(false) : employeeRepository.existsById(employeeId);
+        return exists.flatMap(found -> Mono.error(found
+                ? EmployeeRules.modifiedConcurrently(employeeId, expectedVersion)
+                : EmployeeRules.notFound(employeeId)));
+    }
+}
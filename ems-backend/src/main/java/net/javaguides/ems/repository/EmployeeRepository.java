@@ -1,16 +1,78 @@
 package net.javaguides.ems.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import net.javaguides.ems.dto.EmployeeDto;
 import net.javaguides.ems.entity.Employee;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee,Long> {
-
-
-    List<Employee> findByFirstName(String employeeFirstName);
+@Transactional(readOnly = true)
+public interface EmployeeRepository extends JpaRepository<Employee,Long>, EmployeeRepositoryCustom {
+
+
+    // Read paths select straight into EmployeeDto: no managed entities, no dirty-checking snapshots,
+    // no second-level cache puts and no mapper copy
+    String DTO_SELECT = "select new net.javaguides.ems.dto.EmployeeDto(e.id, e.firstName, e.lastName, e.email, e.version) "
+            + "from Employee e ";
+
+    @Query(DTO_SELECT + "order by e.id")
+    List<EmployeeDto> findAllEmployeeDtos();
+
+    // Exact first-name match found through the (first_name_lc, id) index
+    default List<EmployeeDto> findDtosByFirstName(String firstName) {
+        return findDtosByFirstName(firstName.toLowerCase(Locale.ROOT), firstName);
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(DTO_SELECT + "where e.firstNameLc = :firstNameLc and e.firstName = :firstName")
+    List<EmployeeDto> findDtosByFirstName(String firstNameLc, String firstName);
+
+    // Keyset page: walks the primary key index from the cursor, no OFFSET scan
+    @Query(DTO_SELECT + "where e.id > :afterId order by e.id")
+    List<EmployeeDto> findDtosAfter(Long afterId, Limit limit);
+
+    // Cursor-backed scan for exports; needs an open transaction and must be closed by the caller
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO_SELECT + "order by e.id")
+    Stream<EmployeeDto> streamAllDtos();
+
+    // which of the lower-cased emails are taken, compared case-insensitively through the (email_lc, id) index
+    @Query("select e.emailLc from Employee e where e.emailLc in :emailLcs")
+    List<String> findEmailLcIn(Collection<String> emailLcs);
+
+    // Row-locked read for an unconditional PUT, so a concurrent writer waits instead of failing the version check.
+    // Bypasses the second-level cache, which cannot hold a lock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Employee e where e.id = :id")
+    Optional<Employee> findForUpdateById(Long id);
+
+    // Single-statement deletes: the affected row count tells the caller whether the id existed.
+    // The ...AndVersion variant only touches the row while it still has the expected version.
+    // Updates go through the managed entity instead, so only that row's second-level cache entry changes.
+    @Transactional
+    @Modifying
+    @Query("delete from Employee e where e.id = :id")
+    int deleteEmployeeById(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Employee e where e.id = :id and e.version = :version")
+    int deleteEmployeeByIdAndVersion(Long id, Long version);
 
 }
 
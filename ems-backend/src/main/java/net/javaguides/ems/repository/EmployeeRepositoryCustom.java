@@ -0,0 +1,28 @@
+package net.javaguides.ems.repository;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.entity.Employee;
+import org.springframework.data.domain.Limit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface EmployeeRepositoryCustom {
+
+    // Loads many ids at once, taking hits from the second-level cache and fetching the rest with IN queries
+    List<Employee> findAllByIdIn(Collection<Long> ids);
+
+    // Sparse fieldsets: only the named Employee attributes are selected. Every row is keyed by attribute
+    // name in the order given and always carries "id" first so callers can build cursors.
+    // A null limit means no limit.
+    List<Map<String, Object>> findFieldsById(Long id, List<String> fields);
+
+    List<Map<String, Object>> findFieldsAfter(Long afterId, Integer limit, List<String> fields);
+
+    // Case-insensitive prefix match over the lower-cased columns; prefix must be lower-cased and end in '%',
+    // with LIKE wildcards escaped by '!'. One statement: a UNION of keyset queries, one per (x_lc, id) index.
+    List<EmployeeDto> searchDtosByPrefix(String prefix, Long afterId, Limit limit);
+
+    List<Map<String, Object>> searchFieldsByPrefix(String prefix, Long afterId, Integer limit, List<String> fields);
+}
@@ -0,0 +1,157 @@
+package net.javaguides.ems.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.EntityType;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.entity.Employee;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.BiFunction;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private static final String ID = "id";
+    private static final char LIKE_ESCAPE = '!';
+    // the lower-cased copies a prefix search looks at, each indexed together with id
+    private static final List<String> SEARCH_COLUMNS = List.of("firstNameLc", "lastNameLc", "emailLc");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Employee> findAllByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Employee.class)
+                .multiLoad(new ArrayList<>(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFieldsById(Long id, List<String> fields) {
+        return selectFields(fields, (cb, employee) -> cb.equal(employee.get(ID), id), null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFieldsAfter(Long afterId, Integer limit, List<String> fields) {
+        return selectFields(fields, (cb, employee) -> cb.greaterThan(employee.get(ID), afterId), limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeDto> searchDtosByPrefix(String prefix, Long afterId, Limit limit) {
+        return entityManager.createQuery("select new net.javaguides.ems.dto.EmployeeDto(m.id, m.firstName, "
+                        + "m.lastName, m.email, m.version) from "
+                        + prefixMatches(List.of(ID, "firstName", "lastName", "email", "version"), true)
+                        + " order by m.id", EmployeeDto.class)
+                .setParameter("prefix", prefix)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit.max())
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchFieldsByPrefix(String prefix, Long afterId, Integer limit, List<String> fields) {
+        List<String> columns = columns(fields);
+        EntityType<Employee> entity = entityManager.getMetamodel().entity(Employee.class);
+        StringJoiner selection = new StringJoiner(", ");
+        for (String column : columns) {
+            // throws for an unknown attribute, so nothing but attribute names ends up in the query
+            entity.getAttribute(column);
+            selection.add("m." + column + " as " + column);
+        }
+        TypedQuery<Tuple> query = entityManager.createQuery("select " + selection + " from "
+                        + prefixMatches(columns, limit != null) + " order by m.id", Tuple.class)
+                .setParameter("prefix", prefix)
+                .setParameter("afterId", afterId);
+        if (limit != null) {
+            query.setParameter("limit", limit).setMaxResults(limit);
+        }
+        return toRows(query.getResultList(), columns);
+    }
+
+    // Derived table m: one keyset query per lower-cased column, each able to walk its (x_lc, id) index, and
+    // UNION drops the rows matched on more than one column
+    private static String prefixMatches(List<String> columns, boolean limited) {
+        StringJoiner selection = new StringJoiner(", ");
+        for (String column : columns) {
+            selection.add("e." + column + " as " + column);
+        }
+        StringJoiner union = new StringJoiner(" union ", "(", ") m");
+        for (String searchColumn : SEARCH_COLUMNS) {
+            union.add("(select " + selection + " from Employee e where e." + searchColumn + " like :prefix escape '"
+                    + LIKE_ESCAPE + "' and e.id > :afterId order by e.id" + (limited ? " limit :limit)" : ")"));
+        }
+        return union.toString();
+    }
+
+    private static List<String> columns(List<String> fields) {
+        List<String> columns = new ArrayList<>(fields.size() + 1);
+        columns.add(ID);
+        for (String field : fields) {
+            if (!columns.contains(field)) {
+                columns.add(field);
+            }
+        }
+        return columns;
+    }
+
+    private static List<Map<String, Object>> toRows(List<Tuple> tuples, List<String> columns) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(columns.size() * 2);
+            for (String column : columns) {
+                row.put(column, tuple.get(column));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<Map<String, Object>> selectFields(List<String> fields,
+                                                   BiFunction<CriteriaBuilder, Root<Employee>, Predicate> where,
+                                                   Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Employee> employee = query.from(Employee.class);
+        List<String> columns = columns(fields);
+        List<Selection<?>> selections = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            selections.add(employee.get(column).alias(column));
+        }
+        query.multiselect(selections)
+                .where(where.apply(cb, employee))
+                .orderBy(cb.asc(employee.get(ID)));
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+        return toRows(typedQuery.getResultList(), columns);
+    }
+}
@@ -0,0 +1,40 @@
+package net.javaguides.ems.repository;
+
+import net.javaguides.ems.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+@Transactional(readOnly = true)
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // frees one expired key so it can be claimed again
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.id = :id and k.expiresAt < :now")
+    int deleteExpired(String id, Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.expiresAt < :now")
+    int deleteAllExpired(Instant now);
+
+    // Completes and releases only touch the key while the caller still owns it
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKey k set k.completed = true, k.status = :status, k.contentType = :contentType, "
+            + "k.etag = :etag, k.location = :location, k.body = :body, k.expiresAt = :expiresAt "
+            + "where k.id = :id and k.owner = :owner")
+    int complete(String id, String owner, Integer status, String contentType, String etag, String location,
+                 byte[] body, Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.id = :id and k.owner = :owner and k.completed = false")
+    int release(String id, String owner);
+}
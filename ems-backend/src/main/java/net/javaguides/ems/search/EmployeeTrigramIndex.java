@@ -0,0 +1,309 @@
+package net.javaguides.ems.search;
+
+import lombok.extern.slf4j.Slf4j;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory trigram inverted index over first name, last name and email for ranked fuzzy search.
+// Each document lives in an int slot; posting lists hold slots as primitive ints. Updates and deletes
+// tombstone the old slot, and the index is rebuilt once tombstones outnumber live documents.
+@Slf4j
+@Component
+public class EmployeeTrigramIndex {
+
+    private static final int LOAD_PAGE_SIZE = 5000;
+    private static final int MIN_TOMBSTONES_BEFORE_COMPACTION = 10_000;
+    // trigrams present in more than this share of documents are skipped once a rarer one has matched
+    private static final double COMMON_TRIGRAM_SHARE = 0.2;
+
+    private final EmployeeRepository employeeRepository;
+    private final Executor taskExecutor;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntPostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> slotByEmployeeId = new HashMap<>();
+    private EmployeeDto[] documents = new EmployeeDto[1024];
+    private int[] trigramCounts = new int[1024];
+    private int slotCount;
+    private int liveCount;
+    // ids written through index()/remove() while the startup load runs; the loader must not overwrite them
+    private Set<Long> changedWhileLoading = new HashSet<>();
+    private volatile boolean ready;
+
+    // pooled rather than thread-local so virtual threads reuse them too
+    private final ConcurrentLinkedQueue<SearchScratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    public EmployeeTrigramIndex(EmployeeRepository employeeRepository,
+                                @Qualifier("applicationTaskExecutor") Executor taskExecutor,
+                                @Value("${ems.employee.search-index.enabled:true}") boolean enabled) {
+        this.employeeRepository = employeeRepository;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            taskExecutor.execute(() -> {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    log.error("Employee trigram index failed to load, fuzzy search stays on the database fallback", e);
+                }
+            });
+        }
+    }
+
+    void load() {
+        long started = System.nanoTime();
+        long afterId = 0L;
+        List<EmployeeDto> page;
+        do {
+            page = employeeRepository.findDtosAfter(afterId, Limit.of(LOAD_PAGE_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (EmployeeDto employee : page) {
+                    if (!changedWhileLoading.contains(employee.getId())) {
+                        put(employee);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Employee trigram index loaded {} employees in {} ms",
+                liveCount, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Adds or replaces an employee; inside a transaction the change is applied after commit
+    public void index(EmployeeDto employee) {
+        if (enabled) {
+            afterCommit(() -> write(employee.getId(), employee));
+        }
+    }
+
+    public void remove(Long employeeId) {
+        if (enabled) {
+            afterCommit(() -> write(employeeId, null));
+        }
+    }
+
+    public List<EmployeeDto> search(String query, int limit) {
+        long[] queryTrigrams = Trigrams.of(query);
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return rank(queryTrigrams, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<EmployeeDto> rank(long[] queryTrigrams, int limit) {
+        IntPostingList[] lists = new IntPostingList[queryTrigrams.length];
+        int listCount = 0;
+        for (long trigram : queryTrigrams) {
+            IntPostingList list = postings.get(trigram);
+            if (list != null) {
+                lists[listCount++] = list;
+            }
+        }
+        if (listCount == 0) {
+            return List.of();
+        }
+        // rarest first, so common trigrams can be skipped once something selective has matched
+        Arrays.sort(lists, 0, listCount, (a, b) -> Integer.compare(a.size(), b.size()));
+        SearchScratch search = scratchPool.poll();
+        if (search == null) {
+            search = new SearchScratch();
+        }
+        try {
+            return collect(lists, listCount, search, limit);
+        } finally {
+            search.reset();
+            scratchPool.offer(search);
+        }
+    }
+
+    private List<EmployeeDto> collect(IntPostingList[] lists, int listCount, SearchScratch search, int limit) {
+        search.ensureCapacity(slotCount);
+        int[] hits = search.hits;
+        long commonThreshold = Math.max(1L, (long) (liveCount * COMMON_TRIGRAM_SHARE));
+        int used = 0;
+        for (int i = 0; i < listCount; i++) {
+            IntPostingList list = lists[i];
+            if (used > 0 && list.size() > commonThreshold) {
+                break;
+            }
+            used++;
+            for (int p = 0; p < list.size(); p++) {
+                int slot = list.get(p);
+                if (hits[slot]++ == 0) {
+                    search.touch(slot);
+                }
+            }
+        }
+        // a candidate must share at least a third of the trigrams that were looked at
+        int minHits = Math.max(1, (used + 2) / 3);
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> {
+            int byHits = Integer.compare(hits[a], hits[b]);
+            if (byHits != 0) {
+                return byHits;
+            }
+            int byLength = Integer.compare(trigramCounts[b], trigramCounts[a]);
+            return byLength != 0 ? byLength : Integer.compare(b, a);
+        });
+        for (int t = 0; t < search.touchedCount; t++) {
+            int slot = search.touched[t];
+            if (hits[slot] >= minHits && documents[slot] != null) {
+                best.offer(slot);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        EmployeeDto[] ranked = new EmployeeDto[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = documents[best.poll()];
+        }
+        return Arrays.asList(ranked);
+    }
+
+    private void write(Long employeeId, EmployeeDto employee) {
+        lock.writeLock().lock();
+        try {
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(employeeId);
+            }
+            if (employee == null) {
+                tombstone(employeeId);
+            } else {
+                put(employee);
+            }
+            if (slotCount - liveCount > Math.max(MIN_TOMBSTONES_BEFORE_COMPACTION, liveCount)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // caller holds the write lock
+    private void put(EmployeeDto employee) {
+        tombstone(employee.getId());
+        long[] trigrams = Trigrams.of(employee.getFirstName(), employee.getLastName(), employee.getEmail());
+        if (slotCount == documents.length) {
+            documents = Arrays.copyOf(documents, slotCount * 2);
+            trigramCounts = Arrays.copyOf(trigramCounts, slotCount * 2);
+        }
+        int slot = slotCount++;
+        documents[slot] = employee;
+        trigramCounts[slot] = trigrams.length;
+        for (long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, key -> new IntPostingList()).add(slot);
+        }
+        slotByEmployeeId.put(employee.getId(), slot);
+        liveCount++;
+    }
+
+    private void tombstone(Long employeeId) {
+        Integer slot = slotByEmployeeId.remove(employeeId);
+        if (slot != null) {
+            documents[slot] = null;
+            liveCount--;
+        }
+    }
+
+    private void compact() {
+        List<EmployeeDto> live = new ArrayList<>(liveCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (documents[slot] != null) {
+                live.add(documents[slot]);
+            }
+        }
+        postings.clear();
+        slotByEmployeeId.clear();
+        documents = new EmployeeDto[Math.max(1024, live.size() * 2)];
+        trigramCounts = new int[documents.length];
+        slotCount = 0;
+        liveCount = 0;
+        live.forEach(this::put);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // hit counters reused across searches so a query does not allocate an array sized to the index
+    private static final class SearchScratch {
+        private int[] hits = new int[0];
+        private int[] touched = new int[256];
+        private int touchedCount;
+
+        void ensureCapacity(int slots) {
+            if (hits.length < slots) {
+                hits = new int[Math.max(slots, hits.length * 2)];
+            }
+        }
+
+        void touch(int slot) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = slot;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                hits[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package net.javaguides.ems.search;
+
+import java.util.Arrays;
+
+// Growable list of document slots backed by a primitive int array. Slots are handed out in
+// increasing order, so appending keeps every list sorted.
+final class IntPostingList {
+
+    private int[] slots = new int[4];
+    private int size;
+
+    void add(int slot) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        slots[size++] = slot;
+    }
+
+    int get(int index) {
+        return slots[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
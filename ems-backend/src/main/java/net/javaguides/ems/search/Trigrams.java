@@ -0,0 +1,64 @@
+package net.javaguides.ems.search;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// pg_trgm style trigrams: text is lower-cased and split into alphanumeric words, each word is
+// padded with two leading blanks and one trailing blank. A trigram is packed into a long.
+final class Trigrams {
+
+    private Trigrams() {
+    }
+
+    static long[] of(String... texts) {
+        long[] trigrams = new long[32];
+        int count = 0;
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String lower = text.toLowerCase(Locale.ROOT);
+            int wordStart = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+                if (wordChar && wordStart < 0) {
+                    wordStart = i;
+                } else if (!wordChar && wordStart >= 0) {
+                    int wordLength = i - wordStart;
+                    if (count + wordLength + 1 > trigrams.length) {
+                        trigrams = Arrays.copyOf(trigrams, Math.max(trigrams.length * 2, count + wordLength + 1));
+                    }
+                    for (int t = 0; t <= wordLength; t++) {
+                        trigrams[count++] = pack(
+                                padded(lower, wordStart, wordLength, t),
+                                padded(lower, wordStart, wordLength, t + 1),
+                                padded(lower, wordStart, wordLength, t + 2));
+                    }
+                    wordStart = -1;
+                }
+            }
+        }
+        if (count == 0) {
+            return new long[0];
+        }
+        Arrays.sort(trigrams, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (trigrams[i] != trigrams[distinct - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static char padded(String text, int wordStart, int wordLength, int position) {
+        if (position < 2 || position >= wordLength + 2) {
+            return ' ';
+        }
+        return text.charAt(wordStart + position - 2);
+    }
+
+    private static long pack(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+}
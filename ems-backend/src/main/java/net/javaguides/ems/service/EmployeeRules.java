@@ -0,0 +1,169 @@
+package net.javaguides.ems.service;
+
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.exception.DuplicateEmailException;
+import net.javaguides.ems.exception.InvalidRequestException;
+import net.javaguides.ems.exception.PreconditionFailedException;
+import net.javaguides.ems.exception.ResourceNotFoundException;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Request limits, validation and version rules of the employee API, shared by EmployeeServiceImpl and
+// ReactiveEmployeeServiceImpl so both applications accept and reject exactly the same requests.
+public final class EmployeeRules {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_SEARCH_LENGTH = 100;
+    public static final int MAX_FUZZY_RESULTS = 50;
+    public static final int MAX_BATCH_ITEMS = 10_000;
+    public static final int MAX_IDS_PER_LOOKUP = 1000;
+    // emails per IN list when checking a batch for duplicates
+    public static final int EMAIL_LOOKUP_CHUNK = 1000;
+    // the text columns of employees keep the default @Column length
+    public static final int MAX_TEXT_LENGTH = 255;
+
+    private EmployeeRules() {
+    }
+
+    public static void validateBatchSize(int items) {
+        if (items > MAX_BATCH_ITEMS) {
+            throw new InvalidRequestException("A batch may contain at most " + MAX_BATCH_ITEMS + " employees");
+        }
+    }
+
+    public static void validateIdCount(int ids) {
+        if (ids > MAX_IDS_PER_LOOKUP) {
+            throw new InvalidRequestException("At most " + MAX_IDS_PER_LOOKUP + " ids can be requested at once");
+        }
+    }
+
+    public static void validateSearchQuery(String query) {
+        if (query == null || query.isBlank() || query.length() > MAX_SEARCH_LENGTH) {
+            throw new InvalidRequestException("Search query must be between 1 and " + MAX_SEARCH_LENGTH + " characters");
+        }
+    }
+
+    // LIKE pattern for a case-insensitive prefix match against the *_lc columns, escaped with '!'
+    public static String toLikePrefix(String query) {
+        return query.strip().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
+    }
+
+    public static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public static int fuzzyResults(int limit) {
+        return Math.max(1, Math.min(limit, MAX_FUZZY_RESULTS));
+    }
+
+    // rows holds up to pageSize + 1 entries; the extra row only signals that another page exists
+    public static <T> CursorPageDto<T> toPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> content = hasMore ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasMore ? idOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPageDto<>(content, nextCursor);
+    }
+
+    // why the employees table would refuse this employee, or null; uniqueness of the email is checked apart
+    public static String newEmployeeProblem(EmployeeDto employeeDto) {
+        String email = employeeDto.getEmail();
+        if (email == null || email.isBlank()) {
+            return "Email is required";
+        }
+        if (tooLong(employeeDto.getFirstName()) || tooLong(employeeDto.getLastName()) || tooLong(email)) {
+            return "First name, last name and email may be at most " + MAX_TEXT_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    public static void validateNewEmployee(EmployeeDto employeeDto) {
+        String problem = newEmployeeProblem(employeeDto);
+        if (problem != null) {
+            throw new InvalidRequestException(problem);
+        }
+    }
+
+    private static boolean tooLong(String text) {
+        return text != null && text.length() > MAX_TEXT_LENGTH;
+    }
+
+    // why a batch item cannot be created, or null; takenEmails holds lower-cased emails and gains this one
+    public static String batchItemRejection(EmployeeDto employeeDto, Set<String> takenEmails) {
+        String problem = newEmployeeProblem(employeeDto);
+        if (problem == null && !takenEmails.add(employeeDto.getEmail().toLowerCase(Locale.ROOT))) {
+            return emailAlreadyExists(employeeDto.getEmail());
+        }
+        return problem;
+    }
+
+    public static String emailAlreadyExists(String email) {
+        return "Email already exists: " + email;
+    }
+
+    public static DuplicateEmailException duplicateEmail(String email) {
+        return new DuplicateEmailException(emailAlreadyExists(email));
+    }
+
+    public static String requireEmail(String email) {
+        if (email == null || email.isBlank()) {
+            throw new InvalidRequestException("Email is required");
+        }
+        return requireLength(email);
+    }
+
+    public static String requireLength(String text) {
+        if (tooLong(text)) {
+            throw new InvalidRequestException("First name, last name and email may be at most " + MAX_TEXT_LENGTH
+                    + " characters");
+        }
+        return text;
+    }
+
+    // JSON Merge Patch value of a text field: a string, or null to clear it
+    public static String patchText(Map.Entry<String, Object> change) {
+        Object value = change.getValue();
+        if (value != null && !(value instanceof String)) {
+            throw new InvalidRequestException("Field '" + change.getKey() + "' must be a string or null");
+        }
+        return (String) value;
+    }
+
+    // fields a patch may carry without changing anything; the version is checked through If-Match only
+    public static boolean isIgnoredPatchField(String field) {
+        return field.equals("id") || field.equals("version");
+    }
+
+    public static InvalidRequestException unknownPatchField(String field) {
+        return new InvalidRequestException("Unknown field '" + field + "'");
+    }
+
+    public static boolean isStale(Long expectedVersion, Long currentVersion) {
+        return expectedVersion != null && !expectedVersion.equals(currentVersion);
+    }
+
+    // a write bumps the version by one; an unconditional write does not know which one it was
+    public static Long versionAfterWrite(Long expectedVersion) {
+        return expectedVersion != null ? expectedVersion + 1 : null;
+    }
+
+    public static PreconditionFailedException modifiedConcurrently(Long employeeId, Long expectedVersion) {
+        return new PreconditionFailedException("Employee " + employeeId
+                + " was modified concurrently, expected version " + expectedVersion);
+    }
+
+    public static PreconditionFailedException modifiedConcurrently(Long employeeId) {
+        return new PreconditionFailedException("Employee " + employeeId + " was modified concurrently");
+    }
+
+    public static ResourceNotFoundException notFound(Long employeeId) {
+        return new ResourceNotFoundException("Employee does not exist with the given ID: ", employeeId);
+    }
+}
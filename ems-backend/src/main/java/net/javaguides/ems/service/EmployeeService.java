@@ -1,8 +1,12 @@
 package net.javaguides.ems.service;
 
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
 import net.javaguides.ems.dto.EmployeeDto;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
     //datatype EmployeeDto
@@ -11,27 +15,46 @@ public interface EmployeeService {
     //Create Interface
     //create new employee
     EmployeeDto createEmployee(EmployeeDto employeeDto);
+    //create many employees in one transaction, reporting the outcome of every item
+    EmployeeBatchResultDto createEmployees(List<EmployeeDto> employeeDtos);
 
 
 
     //Get Interface
     //Get employee by id
     EmployeeDto getEmployeeById(Long employeeId);
+    //Get the employees for many ids with one query, missing ids are skipped
+    List<EmployeeDto> getEmployeesByIds(List<Long> employeeIds);
     //Get All employee by firstName
     List<EmployeeDto> getAllEmployeeByFirstName(String employeeFirstName);
+    //Search employees whose first name, last name or email starts with the query, ignoring case
+    CursorPageDto<EmployeeDto> searchEmployees(String query, Long afterId, int limit);
+    //Typo-tolerant "contains" search, best matches first
+    List<EmployeeDto> fuzzySearchEmployees(String query, int limit);
     //Get all employee
     List<EmployeeDto> getAllEmployees();
+    //Get one keyset page of employees ordered by id, starting after the given id
+    CursorPageDto<EmployeeDto> getEmployeesAfter(Long afterId, int limit);
+    //Push every employee to the consumer one row at a time, ordered by id
+    void exportEmployees(Consumer<EmployeeDto> consumer);
+    //Sparse fieldsets: the same reads returning only the requested fields, e.g. fields=id,email
+    Map<String, Object> getEmployeeFieldsById(Long employeeId, List<String> fields);
+    List<Map<String, Object>> getAllEmployeeFields(List<String> fields);
+    CursorPageDto<Map<String, Object>> getEmployeeFieldsAfter(Long afterId, int limit, List<String> fields);
+    CursorPageDto<Map<String, Object>> searchEmployeeFields(String query, Long afterId, int limit, List<String> fields);
 
 
     //Update Interface
-    //Update employee
-    EmployeeDto updateEmployee(Long employeeId, EmployeeDto updatedEmployee);
+    //Update employee; a non-null expectedVersion must match the stored version
+    EmployeeDto updateEmployee(Long employeeId, EmployeeDto updatedEmployee, Long expectedVersion);
+    //Apply a JSON Merge Patch: only the fields present are changed, nothing is written when nothing differs
+    EmployeeDto patchEmployee(Long employeeId, Map<String, Object> patch, Long expectedVersion);
 
 
 
     //Delete Interface
     // Delete employee
-    void deleteEmployee(Long employeeId);
+    void deleteEmployee(Long employeeId, Long expectedVersion);
 }
 
 
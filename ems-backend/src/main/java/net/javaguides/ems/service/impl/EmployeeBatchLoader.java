@@ -0,0 +1,149 @@
+package net.javaguides.ems.service.impl;
+
+import net.javaguides.ems.entity.Employee;
+import net.javaguides.ems.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// DataLoader-style coalescer: lookups by id that arrive within one window share a single repository query.
+// The first caller of a window is the leader; it waits out the window and then runs the query for everyone.
+// A lookup with no other one in progress has nobody to wait for and queries straight away.
+@Component
+public class EmployeeBatchLoader {
+
+    private final EmployeeRepository employeeRepository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<Long, CompletableFuture<Optional<Employee>>> currentBatch;
+    private final AtomicInteger activeLoads = new AtomicInteger();
+    private final LongAdder dispatchedBatches = new LongAdder();
+    private final LongAdder dispatchedIds = new LongAdder();
+
+    public EmployeeBatchLoader(EmployeeRepository employeeRepository,
+                               @Value("${ems.employee.batch-loader.enabled:true}") boolean enabled,
+                               @Value("${ems.employee.batch-loader.window:2ms}") Duration window,
+                               @Value("${ems.employee.batch-loader.max-batch-size:100}") int maxBatchSize) {
+        this.employeeRepository = employeeRepository;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Optional<Employee> load(Long employeeId) {
+        if (!enabled) {
+            return employeeRepository.findById(employeeId);
+        }
+        activeLoads.incrementAndGet();
+        try {
+            return coalesce(employeeId);
+        } finally {
+            activeLoads.decrementAndGet();
+        }
+    }
+
+    private Optional<Employee> coalesce(Long employeeId) {
+        Map<Long, CompletableFuture<Optional<Employee>>> batch;
+        CompletableFuture<Optional<Employee>> future;
+        boolean leader;
+        boolean full;
+        lock.lock();
+        try {
+            leader = currentBatch == null;
+            if (leader && activeLoads.get() == 1) {
+                // alone: a window would only add latency, so this batch of one goes out now
+                future = new CompletableFuture<>();
+                batch = Map.of(employeeId, future);
+                full = true;
+            } else {
+                if (leader) {
+                    currentBatch = new HashMap<>();
+                }
+                batch = currentBatch;
+                future = batch.computeIfAbsent(employeeId, id -> new CompletableFuture<>());
+                full = batch.size() >= maxBatchSize;
+                if (full) {
+                    currentBatch = null;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            dispatch(batch);
+        } else if (leader) {
+            LockSupport.parkNanos(windowNanos);
+            if (detach(batch)) {
+                dispatch(batch);
+            }
+        }
+        return await(future);
+    }
+
+    // false when a follower already sent the batch because it filled up
+    private boolean detach(Map<Long, CompletableFuture<Optional<Employee>>> batch) {
+        lock.lock();
+        try {
+            if (currentBatch != batch) {
+                return false;
+            }
+            currentBatch = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Optional<Employee>>> batch) {
+        dispatchedBatches.increment();
+        dispatchedIds.add(batch.size());
+        try {
+            List<Employee> employees = employeeRepository.findAllByIdIn(batch.keySet());
+            Map<Long, Employee> byId = new HashMap<>(employees.size() * 2);
+            for (Employee employee : employees) {
+                byId.put(employee.getId(), employee);
+            }
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+        } catch (Throwable e) {
+            // every waiter has to hear about it, Errors included, or it would block forever
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    // queries sent; with dispatchedIds this gives the average batch size
+    public long getDispatchedBatchCount() {
+        return dispatchedBatches.sum();
+    }
+
+    public long getDispatchedIdCount() {
+        return dispatchedIds.sum();
+    }
+
+    private static Optional<Employee> await(CompletableFuture<Optional<Employee>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
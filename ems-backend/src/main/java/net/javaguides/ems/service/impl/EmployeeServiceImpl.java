@@ -1,77 +1,436 @@
 package net.javaguides.ems.service.impl;
 
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
 import net.javaguides.ems.dto.EmployeeDto;
 import net.javaguides.ems.entity.Employee;
+import net.javaguides.ems.exception.DuplicateEmailException;
+import net.javaguides.ems.exception.InvalidRequestException;
 import net.javaguides.ems.exception.ResourceNotFoundException;
 import net.javaguides.ems.mapper.EmployeeMapper;
+import net.javaguides.ems.metrics.EmployeeMetrics;
+import net.javaguides.ems.metrics.EmployeeMetrics.ListOperation;
+import net.javaguides.ems.metrics.EmployeeMetrics.Outcome;
 import net.javaguides.ems.repository.EmployeeRepository;
+import net.javaguides.ems.search.EmployeeTrigramIndex;
+import net.javaguides.ems.service.EmployeeRules;
 import net.javaguides.ems.service.EmployeeService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class EmployeeServiceImpl implements EmployeeService {
 
+    // cache name is declared in spring.cache.cache-names; evictions in a transaction apply after commit,
+    // see TransactionAwareCachePostProcessor
+    private static final String EMPLOYEE_CACHE = "employees";
+    // matches spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 500;
+    // EmployeeDto properties a client may ask for with ?fields=
+    private static final Set<String> SELECTABLE_FIELDS = Set.of("id", "firstName", "lastName", "email", "version");
+
     private final EmployeeRepository employeeRepository;
+    private final EntityManager entityManager;
+    private final EmployeeBatchLoader employeeBatchLoader;
+    private final EmployeeTrigramIndex employeeTrigramIndex;
+    private final EmployeeMetrics employeeMetrics;
+    // identical concurrent reads share one database round trip
+    private final SingleFlight<Long, EmployeeDto> idLookups = new SingleFlight<>();
+    private final SingleFlight<String, List<EmployeeDto>> firstNameLookups = new SingleFlight<>();
 
     @Override
     public EmployeeDto createEmployee(EmployeeDto employeeDto) {
+        EmployeeRules.validateNewEmployee(employeeDto);
         Employee employee = EmployeeMapper.mapToEmployee(employeeDto);
-        Employee savedEmployee = employeeRepository.save(employee);
-        return EmployeeMapper.mapToEmployeeDto(savedEmployee);
+        // ids and versions are assigned by the database, never taken from the request
+        employee.setId(null);
+        employee.setVersion(null);
+        Employee savedEmployee;
+        try {
+            savedEmployee = employeeRepository.save(employee);
+        } catch (DataIntegrityViolationException e) {
+            // validated above, so the unique email is the only constraint left to fail
+            throw duplicateEmail(employeeDto.getEmail());
+        }
+        EmployeeDto savedEmployeeDto = EmployeeMapper.mapToEmployeeDto(savedEmployee);
+        employeeTrigramIndex.index(savedEmployeeDto);
+        employeeMetrics.record(Outcome.CREATED);
+        return savedEmployeeDto;
     }
 
     @Override
+    @Transactional
+    public EmployeeBatchResultDto createEmployees(List<EmployeeDto> employeeDtos) {
+        EmployeeRules.validateBatchSize(employeeDtos.size());
+        Set<String> takenEmails = findTakenEmails(employeeDtos);
+        List<EmployeeBatchItemDto> items = new ArrayList<>(employeeDtos.size());
+        List<Employee> pending = new ArrayList<>(BATCH_SIZE);
+        List<EmployeeBatchItemDto> pendingItems = new ArrayList<>(BATCH_SIZE);
+        int created = 0;
+        int duplicates = 0;
+        for (int index = 0; index < employeeDtos.size(); index++) {
+            EmployeeDto employeeDto = employeeDtos.get(index);
+            String rejection = EmployeeRules.batchItemRejection(employeeDto, takenEmails);
+            if (rejection != null) {
+                // a well-formed item can only have been rejected for its email
+                if (EmployeeRules.newEmployeeProblem(employeeDto) == null) {
+                    duplicates++;
+                }
+                items.add(new EmployeeBatchItemDto(index, false, employeeDto, rejection));
+            } else {
+                Employee employee = EmployeeMapper.mapToEmployee(employeeDto);
+                employee.setId(null);
+                employee.setVersion(null);
+                EmployeeBatchItemDto item = new EmployeeBatchItemDto(index, true, null, null);
+                items.add(item);
+                pending.add(employee);
+                pendingItems.add(item);
+                created++;
+                if (pending.size() == BATCH_SIZE) {
+                    saveBatch(pending, pendingItems);
+                }
+            }
+        }
+        saveBatch(pending, pendingItems);
+        employeeMetrics.record(Outcome.CREATED, created);
+        employeeMetrics.record(Outcome.DUPLICATE_EMAIL, duplicates);
+        return new EmployeeBatchResultDto(created, items.size() - created, items);
+    }
+
+    // one JDBC batch per chunk; clearing afterwards keeps the persistence context small
+    private void saveBatch(List<Employee> pending, List<EmployeeBatchItemDto> pendingItems) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Employee> savedEmployees = employeeRepository.saveAll(pending);
+        employeeRepository.flush();
+        for (int i = 0; i < savedEmployees.size(); i++) {
+            EmployeeDto savedEmployeeDto = EmployeeMapper.mapToEmployeeDto(savedEmployees.get(i));
+            pendingItems.get(i).setEmployee(savedEmployeeDto);
+            employeeTrigramIndex.index(savedEmployeeDto);
+        }
+        entityManager.clear();
+        pending.clear();
+        pendingItems.clear();
+    }
+
+    private Set<String> findTakenEmails(List<EmployeeDto> employeeDtos) {
+        List<String> emails = employeeDtos.stream()
+                .map(EmployeeDto::getEmail)
+                .filter(email -> email != null && !email.isBlank())
+                .map(email -> email.toLowerCase(Locale.ROOT))
+                .distinct()
+                .collect(Collectors.toList());
+        Set<String> takenEmails = new HashSet<>();
+        for (int from = 0; from < emails.size(); from += EmployeeRules.EMAIL_LOOKUP_CHUNK) {
+            List<String> chunk = emails.subList(from,
+                    Math.min(from + EmployeeRules.EMAIL_LOOKUP_CHUNK, emails.size()));
+            takenEmails.addAll(employeeRepository.findEmailLcIn(chunk));
+        }
+        return takenEmails;
+    }
+
+    // sync: the miss loads inside the cache's own compute for the key. An eviction arriving meanwhile (the
+    // post-commit one of a write) waits for that load and then removes its result, so a row read before the
+    // commit can no longer be put after the eviction and be served for the whole TTL
+    @Override
+    @Cacheable(cacheNames = EMPLOYEE_CACHE, key = "#employeeId", sync = true)
     public EmployeeDto getEmployeeById(Long employeeId) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() ->
-                        new ResourceNotFoundException("Employee does not exist with the given ID: " + employeeId));
-        return EmployeeMapper.mapToEmployeeDto(employee);
+        // cache hits never get here; they are counted by the cache.gets meter of the employees cache
+        return idLookups.execute(employeeId, () -> {
+            Employee employee = employeeBatchLoader.load(employeeId)
+                    .orElseThrow(() -> notFound(employeeId));
+            employeeMetrics.record(Outcome.FOUND);
+            return EmployeeMapper.mapToEmployeeDto(employee);
+        });
     }
 
     @Override
-    public List<EmployeeDto> getAllEmployeeByFirstName(String employeeFirstName) {
-        List<Employee> employees = employeeRepository.findByFirstName(employeeFirstName);
-        if(employees.isEmpty()){
-            throw new ResourceNotFoundException("No employees found with first name:" + employeeFirstName);
+    public List<EmployeeDto> getEmployeesByIds(List<Long> employeeIds) {
+        EmployeeRules.validateIdCount(employeeIds.size());
+        Map<Long, Employee> employees = new HashMap<>();
+        for (Employee employee : employeeRepository.findAllByIdIn(new LinkedHashSet<>(employeeIds))) {
+            employees.put(employee.getId(), employee);
         }
-        return employees.stream()
+        // answer in request order
+        List<EmployeeDto> employeeDtos = employeeIds.stream()
+                .distinct()
+                .map(employees::get)
+                .filter(Objects::nonNull)
                 .map(EmployeeMapper::mapToEmployeeDto)
                 .collect(Collectors.toList());
+        employeeMetrics.rows(ListOperation.IDS, employeeDtos.size());
+        return employeeDtos;
+    }
+
+    @Override
+    public List<EmployeeDto> getAllEmployeeByFirstName(String employeeFirstName) {
+        return firstNameLookups.execute(employeeFirstName, () -> {
+            List<EmployeeDto> employees = employeeRepository.findDtosByFirstName(employeeFirstName);
+            employeeMetrics.rows(ListOperation.FIRST_NAME, employees.size());
+            if(employees.isEmpty()){
+                employeeMetrics.record(Outcome.NOT_FOUND);
+                throw new ResourceNotFoundException("No employees found with first name:", employeeFirstName);
+            }
+            return employees;
+        });
+    }
+
+    public SingleFlight<Long, EmployeeDto> getIdLookups() {
+        return idLookups;
+    }
+
+    public SingleFlight<String, List<EmployeeDto>> getFirstNameLookups() {
+        return firstNameLookups;
     }
 
 
     @Override
     public List<EmployeeDto> getAllEmployees() {
-        List<Employee> employees = employeeRepository.findAll();
-        return employees.stream()
-                .map(EmployeeMapper::mapToEmployeeDto)
+        return rows(ListOperation.ALL, employeeRepository.findAllEmployeeDtos());
+    }
+
+    @Override
+    public CursorPageDto<EmployeeDto> getEmployeesAfter(Long afterId, int limit) {
+        int pageSize = EmployeeRules.pageSize(limit);
+        return rows(ListOperation.PAGE, EmployeeRules.toPage(employeeRepository.findDtosAfter(
+                afterId == null ? 0L : afterId, Limit.of(pageSize + 1)), pageSize, EmployeeDto::getId));
+    }
+
+    @Override
+    public CursorPageDto<EmployeeDto> searchEmployees(String query, Long afterId, int limit) {
+        EmployeeRules.validateSearchQuery(query);
+        return rows(ListOperation.SEARCH, searchByPrefix(query, afterId, limit));
+    }
+
+    private CursorPageDto<EmployeeDto> searchByPrefix(String query, Long afterId, int limit) {
+        String prefix = EmployeeRules.toLikePrefix(query);
+        int pageSize = EmployeeRules.pageSize(limit);
+        return EmployeeRules.toPage(employeeRepository.searchDtosByPrefix(
+                prefix, afterId == null ? 0L : afterId, Limit.of(pageSize + 1)), pageSize, EmployeeDto::getId);
+    }
+
+    @Override
+    public List<EmployeeDto> fuzzySearchEmployees(String query, int limit) {
+        EmployeeRules.validateSearchQuery(query);
+        int size = EmployeeRules.fuzzyResults(limit);
+        // index disabled or still loading: answer from the indexed prefix search instead
+        List<EmployeeDto> employees = employeeTrigramIndex.isReady()
+                ? employeeTrigramIndex.search(query, size)
+                : searchByPrefix(query, null, size).getContent();
+        return rows(ListOperation.FUZZY, employees);
+    }
+
+    @Override
+    public Map<String, Object> getEmployeeFieldsById(Long employeeId, List<String> fields) {
+        List<String> columns = selectableFields(fields);
+        List<Map<String, Object>> rows = employeeRepository.findFieldsById(employeeId, columns);
+        if (rows.isEmpty()) {
+            throw notFound(employeeId);
+        }
+        employeeMetrics.record(Outcome.FOUND);
+        return stripUnrequestedId(rows, columns).get(0);
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllEmployeeFields(List<String> fields) {
+        List<String> columns = selectableFields(fields);
+        return rows(ListOperation.ALL, stripUnrequestedId(employeeRepository.findFieldsAfter(0L, null, columns), columns));
+    }
+
+    @Override
+    public CursorPageDto<Map<String, Object>> getEmployeeFieldsAfter(Long afterId, int limit, List<String> fields) {
+        List<String> columns = selectableFields(fields);
+        int pageSize = EmployeeRules.pageSize(limit);
+        CursorPageDto<Map<String, Object>> page = EmployeeRules.toPage(employeeRepository.findFieldsAfter(
+                afterId == null ? 0L : afterId, pageSize + 1, columns), pageSize, row -> (Long) row.get("id"));
+        stripUnrequestedId(page.getContent(), columns);
+        return rows(ListOperation.PAGE, page);
+    }
+
+    @Override
+    public CursorPageDto<Map<String, Object>> searchEmployeeFields(String query, Long afterId, int limit, List<String> fields) {
+        EmployeeRules.validateSearchQuery(query);
+        List<String> columns = selectableFields(fields);
+        int pageSize = EmployeeRules.pageSize(limit);
+        CursorPageDto<Map<String, Object>> page = EmployeeRules.toPage(employeeRepository.searchFieldsByPrefix(
+                EmployeeRules.toLikePrefix(query), afterId == null ? 0L : afterId, pageSize + 1, columns),
+                pageSize, row -> (Long) row.get("id"));
+        stripUnrequestedId(page.getContent(), columns);
+        return rows(ListOperation.SEARCH, page);
+    }
+
+    private static List<String> selectableFields(List<String> fields) {
+        List<String> columns = fields.stream()
+                .map(String::strip)
+                .filter(field -> !field.isEmpty())
+                .distinct()
                 .collect(Collectors.toList());
+        if (columns.isEmpty()) {
+            throw new InvalidRequestException("fields must name at least one of " + SELECTABLE_FIELDS);
+        }
+        for (String column : columns) {
+            if (!SELECTABLE_FIELDS.contains(column)) {
+                throw new InvalidRequestException("Unknown field '" + column + "', expected one of " + SELECTABLE_FIELDS);
+            }
+        }
+        return columns;
+    }
+
+    // the repository always selects id for cursors; drop it again when the client did not ask for it
+    private static List<Map<String, Object>> stripUnrequestedId(List<Map<String, Object>> rows, List<String> columns) {
+        if (!columns.contains("id")) {
+            rows.forEach(row -> row.remove("id"));
+        }
+        return rows;
+    }
+
+    private <T> List<T> rows(ListOperation operation, List<T> rows) {
+        employeeMetrics.rows(operation, rows.size());
+        return rows;
+    }
+
+    private <T> CursorPageDto<T> rows(ListOperation operation, CursorPageDto<T> page) {
+        employeeMetrics.rows(operation, page.getContent().size());
+        return page;
     }
 
     @Override
-    public EmployeeDto updateEmployee(Long employeeId, @org.jetbrains.annotations.NotNull EmployeeDto updatedEmployee) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() ->
-                        new ResourceNotFoundException("Employee does not exist with the given ID: " + employeeId));
+    @Transactional(readOnly = true)
+    public void exportEmployees(Consumer<EmployeeDto> consumer) {
+        // DTO rows are never attached to the persistence context, so heap stays flat for any table size
+        int[] exported = new int[1];
+        try (Stream<EmployeeDto> employees = employeeRepository.streamAllDtos()) {
+            employees.forEach(employeeDto -> {
+                consumer.accept(employeeDto);
+                exported[0]++;
+            });
+        }
+        employeeMetrics.rows(ListOperation.EXPORT, exported[0]);
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#employeeId")
+    public EmployeeDto updateEmployee(Long employeeId, @org.jetbrains.annotations.NotNull EmployeeDto updatedEmployee,
+                                      Long expectedVersion) {
+        // a PUT replaces every field, so it must satisfy the same rules as a create
+        EmployeeRules.validateNewEmployee(updatedEmployee);
+        // a conditional PUT relies on the version check and may read from the second-level cache;
+        // an unconditional one locks the row so it cannot lose an optimistic-lock race
+        Employee employee = (expectedVersion == null
+                ? employeeRepository.findForUpdateById(employeeId)
+                : employeeRepository.findById(employeeId))
+                .orElseThrow(() -> notFound(employeeId));
+        if (EmployeeRules.isStale(expectedVersion, employee.getVersion())) {
+            employeeMetrics.record(Outcome.PRECONDITION_FAILED);
+            throw EmployeeRules.modifiedConcurrently(employeeId, expectedVersion);
+        }
         employee.setFirstName(updatedEmployee.getFirstName());
         employee.setLastName(updatedEmployee.getLastName());
         employee.setEmail(updatedEmployee.getEmail());
-        Employee updatedEmployeeObj = employeeRepository.save(employee);
-
-        return EmployeeMapper.mapToEmployeeDto(updatedEmployeeObj);
+        return flushUpdate(employee);
     }
 
     @Override
-    public void deleteEmployee(Long employeeId) {
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#employeeId")
+    public EmployeeDto patchEmployee(Long employeeId, Map<String, Object> patch, Long expectedVersion) {
         Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() ->
-                        new ResourceNotFoundException("Employee does not exist with the given ID: " + employeeId));
-        employeeRepository.deleteById(employeeId);
+                .orElseThrow(() -> notFound(employeeId));
+        if (EmployeeRules.isStale(expectedVersion, employee.getVersion())) {
+            employeeMetrics.record(Outcome.PRECONDITION_FAILED);
+            throw EmployeeRules.modifiedConcurrently(employeeId, expectedVersion);
+        }
+        for (Map.Entry<String, Object> change : patch.entrySet()) {
+            switch (change.getKey()) {
+                case "firstName" -> employee.setFirstName(EmployeeRules.requireLength(EmployeeRules.patchText(change)));
+                case "lastName" -> employee.setLastName(EmployeeRules.requireLength(EmployeeRules.patchText(change)));
+                case "email" -> employee.setEmail(EmployeeRules.requireEmail(EmployeeRules.patchText(change)));
+                default -> {
+                    if (!EmployeeRules.isIgnoredPatchField(change.getKey())) {
+                        throw EmployeeRules.unknownPatchField(change.getKey());
+                    }
+                }
+            }
+        }
+        return flushUpdate(employee);
+    }
+
+    // Writes the changed fields of a managed employee. Unlike a bulk UPDATE this updates only that row's
+    // second-level cache entry, and normalize() keeps the lower-cased search columns in sync.
+    private EmployeeDto flushUpdate(Employee employee) {
+        Long versionBefore = employee.getVersion();
+        try {
+            // dirty checking skips the UPDATE when no value changed, @DynamicUpdate limits it to changed columns
+            employeeRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            employeeMetrics.record(Outcome.PRECONDITION_FAILED);
+            throw EmployeeRules.modifiedConcurrently(employee.getId());
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateEmail(employee.getEmail());
+        }
+        EmployeeDto employeeDto = EmployeeMapper.mapToEmployeeDto(employee);
+        if (!Objects.equals(versionBefore, employee.getVersion())) {
+            employeeTrigramIndex.index(employeeDto);
+        }
+        employeeMetrics.record(Outcome.UPDATED);
+        return employeeDto;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#employeeId")
+    public void deleteEmployee(Long employeeId, Long expectedVersion) {
+        int deleted = expectedVersion == null
+                ? employeeRepository.deleteEmployeeById(employeeId)
+                : employeeRepository.deleteEmployeeByIdAndVersion(employeeId, expectedVersion);
+        if (deleted == 0) {
+            throw missingOrModified(employeeId, expectedVersion);
+        }
+        employeeTrigramIndex.remove(employeeId);
+        employeeMetrics.record(Outcome.DELETED);
+    }
+
+    // a conditional write matched no row: either the employee is gone or someone else changed it first
+    private RuntimeException missingOrModified(Long employeeId, Long expectedVersion) {
+        if (expectedVersion != null && employeeRepository.existsById(employeeId)) {
+            employeeMetrics.record(Outcome.PRECONDITION_FAILED);
+            return EmployeeRules.modifiedConcurrently(employeeId, expectedVersion);
+        }
+        return notFound(employeeId);
+    }
+
+    private DuplicateEmailException duplicateEmail(String email) {
+        employeeMetrics.record(Outcome.DUPLICATE_EMAIL);
+        return EmployeeRules.duplicateEmail(email);
+    }
+
+    private ResourceNotFoundException notFound(Long employeeId) {
+        employeeMetrics.record(Outcome.NOT_FOUND);
+        return EmployeeRules.notFound(employeeId);
     }
 }
 
@@ -0,0 +1,240 @@
+package net.javaguides.ems.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.dto.EmployeeIngestionDto;
+import net.javaguides.ems.dto.EmployeeIngestionDto.Status;
+import net.javaguides.ems.exception.DuplicateEmailException;
+import net.javaguides.ems.exception.ResourceNotFoundException;
+import net.javaguides.ems.exception.TooManyRequestsException;
+import net.javaguides.ems.service.EmployeeRules;
+import net.javaguides.ems.service.EmployeeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Write-behind ingestion for POST /api/employees: a submission is validated, queued and answered with 202 and a
+// tracking id; one writer thread drains the queue through createEmployees, so a burst becomes a few batched
+// transactions instead of one transaction per request. The queue is bounded and a full queue answers 429.
+// Statuses are kept in memory, so a tracking id is only known to the instance that accepted it.
+@Slf4j
+@Component
+public class EmployeeWriteBehindQueue implements SmartLifecycle {
+
+    // stopped after the web server has stopped taking requests, before the datasource is closed
+    private static final int PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    private static final long POLL_MILLIS = 100;
+
+    private record Submission(String trackingId, EmployeeDto employee) {
+    }
+
+    private final EmployeeService employeeService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration retryAfter;
+    private final Duration drainTimeout;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<String, EmployeeIngestionDto> statuses;
+
+    private final LongAdder acceptedSubmissions = new LongAdder();
+    private final LongAdder rejectedSubmissions = new LongAdder();
+    private final LongAdder writtenBatches = new LongAdder();
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    public EmployeeWriteBehindQueue(EmployeeService employeeService,
+                                    @Value("${ems.employee.write-behind.enabled:false}") boolean enabled,
+                                    @Value("${ems.employee.write-behind.capacity:10000}") int capacity,
+                                    @Value("${ems.employee.write-behind.batch-size:500}") int batchSize,
+                                    @Value("${ems.employee.write-behind.retry-after:1s}") Duration retryAfter,
+                                    @Value("${ems.employee.write-behind.drain-timeout:30s}") Duration drainTimeout,
+                                    @Value("${ems.employee.write-behind.status-retention:10m}") Duration statusRetention,
+                                    @Value("${ems.employee.write-behind.status-rate:1000}") int statusRate) {
+        this.employeeService = employeeService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.retryAfter = retryAfter;
+        this.drainTimeout = drainTimeout;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(statusCapacity(capacity, statusRate, statusRetention))
+                .expireAfterWrite(statusRetention)
+                .build();
+    }
+
+    // room for statusRate submissions a second over the whole retention, and never less than two full queues so a
+    // queued tracking id stays known until it is written. Above that rate the size cap wins over the retention:
+    // the oldest outcomes are evicted early and their tracking ids answer 404.
+    static long statusCapacity(int capacity, int statusRate, Duration statusRetention) {
+        return Math.max(capacity * 2L, statusRate * statusRetention.toSeconds());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // the checks of a synchronous create, so a submission the table would refuse is a 400 now, not a FAILED
+    // status later; only a taken email can still fail at write time, since it depends on what is written first
+    public EmployeeIngestionDto submit(EmployeeDto employeeDto) {
+        EmployeeRules.validateNewEmployee(employeeDto);
+        String trackingId = UUID.randomUUID().toString();
+        EmployeeIngestionDto queued = new EmployeeIngestionDto(trackingId, Status.QUEUED, null, null);
+        // registered before it is queued so the writer never completes an id the status map has not seen
+        statuses.put(trackingId, queued);
+        if (!accepting || !queue.offer(new Submission(trackingId, employeeDto))) {
+            statuses.invalidate(trackingId);
+            rejectedSubmissions.increment();
+            throw new TooManyRequestsException("The employee ingestion queue is full", retryAfter);
+        }
+        acceptedSubmissions.increment();
+        return queued;
+    }
+
+    public EmployeeIngestionDto getStatus(String trackingId) {
+        EmployeeIngestionDto status = statuses.getIfPresent(trackingId);
+        if (status == null) {
+            throw new ResourceNotFoundException("No employee ingestion with the given tracking ID: ", trackingId);
+        }
+        return status;
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Submission first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Submission> batch) {
+        writtenBatches.increment();
+        List<EmployeeDto> employeeDtos = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            employeeDtos.add(submission.employee());
+        }
+        List<EmployeeBatchItemDto> items;
+        try {
+            items = employeeService.createEmployees(employeeDtos).getItems();
+        } catch (DataIntegrityViolationException e) {
+            // e.g. an email taken by a concurrent synchronous create after the duplicate check;
+            // retry one by one so a single bad row does not fail its neighbours
+            log.warn("Write-behind batch of {} employees hit a constraint, retrying them one by one", batch.size(), e);
+            batch.forEach(this::writeOne);
+            return;
+        } catch (RuntimeException e) {
+            log.error("Write-behind batch of {} employees failed", batch.size(), e);
+            batch.forEach(submission -> statuses.put(submission.trackingId(), failed(submission.trackingId())));
+            return;
+        }
+        for (EmployeeBatchItemDto item : items) {
+            String trackingId = batch.get(item.getIndex()).trackingId();
+            statuses.put(trackingId, item.isCreated()
+                    ? new EmployeeIngestionDto(trackingId, Status.CREATED, item.getEmployee(), null)
+                    : new EmployeeIngestionDto(trackingId, Status.FAILED, null, item.getError()));
+        }
+    }
+
+    private void writeOne(Submission submission) {
+        EmployeeIngestionDto status;
+        try {
+            EmployeeDto savedEmployee = employeeService.createEmployee(submission.employee());
+            status = new EmployeeIngestionDto(submission.trackingId(), Status.CREATED, savedEmployee, null);
+        } catch (DuplicateEmailException e) {
+            status = new EmployeeIngestionDto(submission.trackingId(), Status.FAILED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            status = failed(submission.trackingId());
+        }
+        statuses.put(submission.trackingId(), status);
+    }
+
+    private static EmployeeIngestionDto failed(String trackingId) {
+        return new EmployeeIngestionDto(trackingId, Status.FAILED, null, "The employee could not be saved, submit it again");
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        accepting = true;
+        writer = Thread.ofPlatform().name("employee-write-behind").start(this::drain);
+    }
+
+    // graceful drain: refuse new submissions, then give the writer drainTimeout to empty the queue
+    @Override
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        accepting = false;
+        running = false;
+        try {
+            writer.join(drainTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+            log.error("Write-behind queue not drained within {}, {} queued employees were not saved",
+                    drainTimeout, queue.size());
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedSubmissions.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedSubmissions.sum();
+    }
+
+    public long getWrittenBatchCount() {
+        return writtenBatches.sum();
+    }
+}
@@ -0,0 +1,38 @@
+package net.javaguides.ems.web;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// Binary representations picked through the Accept and Content-Type headers, next to JSON:
+// application/cbor, application/x-jackson-smile and application/x-protobuf.
+// The Jackson ones are built from Boot's builder so spring.jackson.* settings apply to every format;
+// declaring them as beans replaces the defaults Spring MVC would otherwise register, in their place after JSON.
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatsConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // appended rather than declared as a bean: Boot puts extra converter beans first, and protobuf must not
+    // win over JSON for clients that send Accept: */*
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new EmployeeProtobufHttpMessageConverter());
+    }
+}
@@ -0,0 +1,153 @@
+package net.javaguides.ems.web;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Hand-written codec for the messages in proto/employee.proto. Writing straight from EmployeeDto avoids
+// generated classes and the copy into them; any protobuf client can still use the schema as usual.
+public final class EmployeeProtobuf {
+
+    // Employee
+    private static final int ID = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int LAST_NAME = 3;
+    private static final int EMAIL = 4;
+    private static final int VERSION = 5;
+    // EmployeeList.employees and EmployeePage.content
+    private static final int EMPLOYEES = 1;
+    // EmployeePage
+    private static final int NEXT_CURSOR = 2;
+
+    private static final int ID_TAG = tag(ID, WireFormat.WIRETYPE_VARINT);
+    private static final int FIRST_NAME_TAG = tag(FIRST_NAME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int LAST_NAME_TAG = tag(LAST_NAME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int EMAIL_TAG = tag(EMAIL, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int VERSION_TAG = tag(VERSION, WireFormat.WIRETYPE_VARINT);
+    private static final int EMPLOYEES_TAG = tag(EMPLOYEES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private EmployeeProtobuf() {
+    }
+
+    public static void writeEmployee(EmployeeDto employee, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        writeFields(employee, output);
+        output.flush();
+    }
+
+    public static void writeEmployees(List<EmployeeDto> employees, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        writeEmbedded(employees, output);
+        output.flush();
+    }
+
+    public static void writePage(CursorPageDto<EmployeeDto> page, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        writeEmbedded(page.getContent(), output);
+        if (page.getNextCursor() != null) {
+            output.writeInt64(NEXT_CURSOR, page.getNextCursor());
+        }
+        output.flush();
+    }
+
+    public static EmployeeDto readEmployee(InputStream inputStream) throws IOException {
+        return readFields(CodedInputStream.newInstance(inputStream));
+    }
+
+    public static List<EmployeeDto> readEmployees(InputStream inputStream) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(inputStream);
+        List<EmployeeDto> employees = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag == EMPLOYEES_TAG) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                employees.add(readFields(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return employees;
+    }
+
+    private static void writeEmbedded(List<EmployeeDto> employees, CodedOutputStream output) throws IOException {
+        for (EmployeeDto employee : employees) {
+            output.writeTag(EMPLOYEES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(fieldsSize(employee));
+            writeFields(employee, output);
+        }
+    }
+
+    // null fields are left out, which proto3 "optional" reads back as unset
+    private static void writeFields(EmployeeDto employee, CodedOutputStream output) throws IOException {
+        if (employee.getId() != null) {
+            output.writeInt64(ID, employee.getId());
+        }
+        if (employee.getFirstName() != null) {
+            output.writeString(FIRST_NAME, employee.getFirstName());
+        }
+        if (employee.getLastName() != null) {
+            output.writeString(LAST_NAME, employee.getLastName());
+        }
+        if (employee.getEmail() != null) {
+            output.writeString(EMAIL, employee.getEmail());
+        }
+        if (employee.getVersion() != null) {
+            output.writeInt64(VERSION, employee.getVersion());
+        }
+    }
+
+    private static int fieldsSize(EmployeeDto employee) {
+        int size = 0;
+        if (employee.getId() != null) {
+            size += CodedOutputStream.computeInt64Size(ID, employee.getId());
+        }
+        if (employee.getFirstName() != null) {
+            size += CodedOutputStream.computeStringSize(FIRST_NAME, employee.getFirstName());
+        }
+        if (employee.getLastName() != null) {
+            size += CodedOutputStream.computeStringSize(LAST_NAME, employee.getLastName());
+        }
+        if (employee.getEmail() != null) {
+            size += CodedOutputStream.computeStringSize(EMAIL, employee.getEmail());
+        }
+        if (employee.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(VERSION, employee.getVersion());
+        }
+        return size;
+    }
+
+    // reads up to the end of the stream or the current limit; unknown fields are skipped
+    private static EmployeeDto readFields(CodedInputStream input) throws IOException {
+        EmployeeDto employee = new EmployeeDto();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag == ID_TAG) {
+                employee.setId(input.readInt64());
+            } else if (tag == FIRST_NAME_TAG) {
+                employee.setFirstName(input.readString());
+            } else if (tag == LAST_NAME_TAG) {
+                employee.setLastName(input.readString());
+            } else if (tag == EMAIL_TAG) {
+                employee.setEmail(input.readString());
+            } else if (tag == VERSION_TAG) {
+                employee.setVersion(input.readInt64());
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return employee;
+    }
+
+    private static int tag(int fieldNumber, int wireType) {
+        return (fieldNumber << 3) | wireType;
+    }
+}
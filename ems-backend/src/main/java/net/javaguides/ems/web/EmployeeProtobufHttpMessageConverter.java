@@ -0,0 +1,97 @@
+package net.javaguides.ems.web;
+
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+// application/x-protobuf for EmployeeDto, List<EmployeeDto> and CursorPageDto<EmployeeDto> (proto/employee.proto).
+// Other bodies, such as sparse fieldsets or batch results, are left to the Jackson formats.
+public class EmployeeProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+    private enum Message {
+        EMPLOYEE, EMPLOYEE_LIST, EMPLOYEE_PAGE
+    }
+
+    public EmployeeProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EmployeeDto.class == clazz;
+    }
+
+    // content negotiation asks by class; the element type is checked in canRead/canWrite
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) || List.class.isAssignableFrom(clazz) || clazz == CursorPageDto.class
+                ? getSupportedMediaTypes()
+                : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        Message message = messageOf(type);
+        return (message == Message.EMPLOYEE || message == Message.EMPLOYEE_LIST) && canRead(mediaType);
+    }
+
+    // a ResponseEntity<?> handler declares no body type, then the class of the returned body decides
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        Message message = type != null ? messageOf(type) : null;
+        return (message != null || messageOf(clazz) != null) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return messageOf(type) == Message.EMPLOYEE_LIST
+                ? EmployeeProtobuf.readEmployees(inputMessage.getBody())
+                : readInternal(EmployeeDto.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return EmployeeProtobuf.readEmployee(inputMessage.getBody());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (body instanceof EmployeeDto employee) {
+            EmployeeProtobuf.writeEmployee(employee, outputMessage.getBody());
+        } else if (body instanceof CursorPageDto<?> page) {
+            EmployeeProtobuf.writePage((CursorPageDto<EmployeeDto>) page, outputMessage.getBody());
+        } else {
+            EmployeeProtobuf.writeEmployees((List<EmployeeDto>) body, outputMessage.getBody());
+        }
+    }
+
+    private static Message messageOf(Type type) {
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        Class<?> rawType = resolvableType.resolve();
+        if (rawType == EmployeeDto.class) {
+            return Message.EMPLOYEE;
+        }
+        if (rawType == null || resolvableType.getGeneric(0).resolve() != EmployeeDto.class) {
+            return null;
+        }
+        if (List.class.isAssignableFrom(rawType)) {
+            return Message.EMPLOYEE_LIST;
+        }
+        return rawType == CursorPageDto.class ? Message.EMPLOYEE_PAGE : null;
+    }
+}
@@ -0,0 +1,403 @@
+package net.javaguides.ems;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.service.EmployeeService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Open-model load test: requests are started on a fixed schedule whether or not earlier ones have
+// finished, and each latency is measured from the scheduled start, so a stalled server shows up in the
+// percentiles instead of silently lowering the offered load (no coordinated omission).
+// Run with: mvn test -Pload-test -Dload.rate=500 -Dload.duration=60s -Dload.mix=get=80,update=20
+// Add -Dspring.threads.virtual.enabled=true to measure the virtual-thread mode.
+// With -Dload.connections=N it is a closed model instead: N clients each keep one request in flight, so N
+// connections stay busy; mvn test -Pload-test-threads runs that at 2000 connections on platform threads and
+// again on virtual threads (target/load-test/platform-threads.json and virtual-threads.json).
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-load;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class EmployeeLoadTests {
+
+	private static final int SEED_BATCH = 5000;
+	private static final int PAGE_SIZE = 50;
+	// one hour in microseconds, three significant digits
+	private static final long HIGHEST_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${load.seed-employees:10000}")
+	private int seedEmployees;
+
+	// requests started per second, across all operations
+	@Value("${load.rate:200}")
+	private int rate;
+
+	// > 0 switches to the closed model with this many concurrent clients; rate is then ignored
+	@Value("${load.connections:0}")
+	private int connections;
+
+	@Value("${load.warmup:5s}")
+	private Duration warmup;
+
+	@Value("${load.duration:30s}")
+	private Duration duration;
+
+	// relative weights of the operations
+	@Value("${load.mix:get=60,list=15,create=10,update=10,delete=5}")
+	private String mix;
+
+	@Value("${load.max-error-rate:0.01}")
+	private double maxErrorRate;
+
+	@Value("${load.report:target/load-test/report.json}")
+	private Path report;
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
+	// drives the open model's single scheduling thread and seeds the closed model's clients
+	private final Random random = new Random(42);
+	private final AtomicLong sequence = new AtomicLong();
+	private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+	private List<EmployeeDto> seeded;
+	private HttpClient httpClient;
+
+	@Test
+	void fixedArrivalRate() throws Exception {
+		seeded = seed();
+		Map<Operation, Integer> weights = parseMix(mix);
+		httpClient = HttpClient.newBuilder()
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(REQUEST_TIMEOUT)
+				.build();
+
+		drive(weights, warmup);
+		Instant startedAt = Instant.now();
+		Map<Operation, EndpointStats> stats = drive(weights, duration);
+		writeReport(startedAt, weights, stats);
+
+		long requests = stats.values().stream().mapToLong(EndpointStats::count).sum();
+		long errors = stats.values().stream().mapToLong(endpoint -> endpoint.errors.sum()).sum();
+		assertThat(requests).isPositive();
+		assertThat((double) errors / requests).isLessThanOrEqualTo(maxErrorRate);
+	}
+
+	private List<EmployeeDto> seed() {
+		List<EmployeeDto> employees = new ArrayList<>(seedEmployees);
+		for (int from = 0; from < seedEmployees; from += SEED_BATCH) {
+			List<EmployeeDto> batch = new ArrayList<>();
+			for (int i = from; i < Math.min(from + SEED_BATCH, seedEmployees); i++) {
+				batch.add(new EmployeeDto(null, "First" + i, "Last" + i, "seed" + i + "@example.com", null));
+			}
+			for (EmployeeBatchItemDto item : employeeService.createEmployees(batch).getItems()) {
+				employees.add(item.getEmployee());
+			}
+		}
+		return employees;
+	}
+
+	private Map<Operation, EndpointStats> drive(Map<Operation, Integer> weights, Duration phase)
+			throws InterruptedException {
+		if (connections > 0) {
+			return driveConnections(weights, phase);
+		}
+		Map<Operation, EndpointStats> stats = newStats(weights);
+		Operation[] schedule = weightedSchedule(weights);
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long requests = phase.toNanos() / intervalNanos;
+		LongAdder completed = new LongAdder();
+		long start = System.nanoTime();
+		for (long i = 0; i < requests; i++) {
+			long intended = start + i * intervalNanos;
+			long wait = intended - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Operation operation = schedule[random.nextInt(schedule.length)];
+			EndpointStats endpoint = stats.get(operation);
+			send(operation, random).whenComplete((status, error) -> {
+				endpoint.record(System.nanoTime() - intended, status, error);
+				completed.increment();
+			});
+		}
+		// the arrival window ends with the last scheduled start; draining the stragglers is not part of it
+		long elapsedNanos = System.nanoTime() - start;
+		long deadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos() * 2;
+		while (completed.sum() < requests && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		stats.values().forEach(endpoint -> endpoint.elapsedNanos = elapsedNanos);
+		return stats;
+	}
+
+	// Closed model: each client sends its next request when the previous one is answered, so latency is measured
+	// from the actual send and throughput is what the server sustains with this many connections busy
+	private Map<Operation, EndpointStats> driveConnections(Map<Operation, Integer> weights, Duration phase)
+			throws InterruptedException {
+		Map<Operation, EndpointStats> stats = newStats(weights);
+		Operation[] schedule = weightedSchedule(weights);
+		long start = System.nanoTime();
+		long end = start + phase.toNanos();
+		List<Thread> clients = new ArrayList<>(connections);
+		for (int client = 0; client < connections; client++) {
+			Random clientRandom = new Random(random.nextLong());
+			clients.add(Thread.ofVirtual().start(() -> {
+				while (System.nanoTime() < end) {
+					Operation operation = schedule[clientRandom.nextInt(schedule.length)];
+					long sent = System.nanoTime();
+					Integer status = null;
+					Throwable error = null;
+					try {
+						status = send(operation, clientRandom).join();
+					} catch (CompletionException e) {
+						error = e.getCause();
+					}
+					stats.get(operation).record(System.nanoTime() - sent, status, error);
+				}
+			}));
+		}
+		for (Thread client : clients) {
+			client.join();
+		}
+		// requests still in flight at the end are counted, but the window is the phase itself
+		long elapsedNanos = end - start;
+		stats.values().forEach(endpoint -> endpoint.elapsedNanos = elapsedNanos);
+		return stats;
+	}
+
+	private static Map<Operation, EndpointStats> newStats(Map<Operation, Integer> weights) {
+		Map<Operation, EndpointStats> stats = new LinkedHashMap<>();
+		for (Operation operation : weights.keySet()) {
+			stats.put(operation, new EndpointStats());
+		}
+		return stats;
+	}
+
+	// resolves to the HTTP status, or null when the operation had nothing to act on
+	private CompletableFuture<Integer> send(Operation operation, Random random) {
+		return switch (operation) {
+			case GET -> exchange(get("/api/employees/" + randomSeeded(random).getId()));
+			case LIST -> exchange(get("/api/employees?limit=" + PAGE_SIZE + "&after=" + (randomSeeded(random).getId() - 1)));
+			case CREATE -> {
+				long n = sequence.incrementAndGet();
+				EmployeeDto employee = new EmployeeDto(null, "Load" + n, "Test" + n, "load" + n + "@example.com", null);
+				yield httpClient.sendAsync(json("POST", "/api/employees", employee), HttpResponse.BodyHandlers.ofString())
+						.thenApply(response -> {
+							if (response.statusCode() == 201) {
+								createdIds.add(idOf(response.body()));
+							}
+							return response.statusCode();
+						});
+			}
+			case UPDATE -> {
+				EmployeeDto employee = randomSeeded(random);
+				EmployeeDto update = new EmployeeDto(null, employee.getFirstName(), "Updated" + sequence.incrementAndGet(),
+						employee.getEmail(), null);
+				yield exchange(json("PUT", "/api/employees/" + employee.getId(), update));
+			}
+			// only rows this run created are deleted, so GET and UPDATE keep hitting existing ids
+			case DELETE -> {
+				Long id = createdIds.poll();
+				yield id == null
+						? CompletableFuture.completedFuture(null)
+						: exchange(request("/api/employees/" + id).DELETE().build());
+			}
+		};
+	}
+
+	private EmployeeDto randomSeeded(Random random) {
+		return seeded.get(random.nextInt(seeded.size()));
+	}
+
+	private CompletableFuture<Integer> exchange(HttpRequest request) {
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+	}
+
+	private HttpRequest get(String path) {
+		return request(path).GET().build();
+	}
+
+	private HttpRequest json(String method, String path, EmployeeDto body) {
+		try {
+			return request(path)
+					.header("Content-Type", "application/json")
+					.method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+					.build();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(REQUEST_TIMEOUT);
+	}
+
+	private Long idOf(String body) {
+		try {
+			return objectMapper.readTree(body).get("id").asLong();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Map<Operation, Integer> parseMix(String mix) {
+		Map<Operation, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.strip().split("=");
+			weights.put(Operation.valueOf(parts[0].strip().toUpperCase()), Integer.parseInt(parts[1].strip()));
+		}
+		return weights;
+	}
+
+	private static Operation[] weightedSchedule(Map<Operation, Integer> weights) {
+		List<Operation> schedule = new ArrayList<>();
+		weights.forEach((operation, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				schedule.add(operation);
+			}
+		});
+		return schedule.toArray(Operation[]::new);
+	}
+
+	private void writeReport(Instant startedAt, Map<Operation, Integer> weights, Map<Operation, EndpointStats> stats)
+			throws IOException {
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("rate", connections > 0 ? null : rate);
+		config.put("connections", connections);
+		config.put("warmupSeconds", warmup.toSeconds());
+		config.put("durationSeconds", duration.toSeconds());
+		config.put("seedEmployees", seedEmployees);
+		config.put("mix", weights);
+		config.put("virtualThreads", virtualThreads);
+		config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+
+		Histogram all = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+		Map<String, Object> endpoints = new LinkedHashMap<>();
+		long requests = 0;
+		long elapsedNanos = 1;
+		for (Map.Entry<Operation, EndpointStats> entry : stats.entrySet()) {
+			EndpointStats endpoint = entry.getValue();
+			all.add(endpoint.latencies);
+			requests += endpoint.count();
+			elapsedNanos = endpoint.elapsedNanos;
+			endpoints.put(entry.getKey().name().toLowerCase(), endpoint.toReport());
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("startedAt", startedAt.toString());
+		result.put("config", config);
+		result.put("achievedRate", requests * 1e9 / elapsedNanos);
+		result.put("all", latencyReport(all));
+		result.put("endpoints", endpoints);
+		Files.createDirectories(report.toAbsolutePath().getParent());
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), result);
+	}
+
+	private static Map<String, Object> latencyReport(Histogram histogram) {
+		Map<String, Object> latency = new LinkedHashMap<>();
+		latency.put("meanMs", histogram.getMean() / 1000.0);
+		latency.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+		latency.put("p90Ms", histogram.getValueAtPercentile(90) / 1000.0);
+		latency.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+		latency.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+		latency.put("maxMs", histogram.getMaxValue() / 1000.0);
+		// full distribution in microseconds, decodable with Histogram.decodeFromCompressedByteBuffer
+		ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+		int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+		latency.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+		return latency;
+	}
+
+	private enum Operation {
+		GET, LIST, CREATE, UPDATE, DELETE
+	}
+
+	private static final class EndpointStats {
+		private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder skipped = new LongAdder();
+		private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+		private volatile long elapsedNanos;
+
+		void record(long latencyNanos, Integer status, Throwable error) {
+			if (error == null && status == null) {
+				skipped.increment();
+				return;
+			}
+			latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+			String outcome = error != null ? error.getClass().getSimpleName() : String.valueOf(status);
+			statuses.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+			if (error != null || status >= 400) {
+				errors.increment();
+			}
+		}
+
+		long count() {
+			return latencies.getTotalCount();
+		}
+
+		Map<String, Object> toReport() {
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("requests", count());
+			report.put("errors", errors.sum());
+			report.put("skipped", skipped.sum());
+			report.put("throughput", count() * 1e9 / elapsedNanos);
+			Map<String, Long> outcomes = new TreeMap<>();
+			statuses.forEach((outcome, counter) -> outcomes.put(outcome, counter.sum()));
+			report.put("statuses", outcomes);
+			report.put("latency", latencyReport(latencies));
+			return report;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package net.javaguides.ems;
+
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.exception.ResourceNotFoundException;
+import net.javaguides.ems.service.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Starts on a database the IDENTITY-era application left behind: ddl-auto=update adds the new columns and
+// employees_seq, new employees must not be given ids that are already taken, and the old rows must be findable.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-schema-upgrade;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=update",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:baseline-schema.sql",
+		"spring.cache.type=none",
+		"ems.hibernate.cache.enabled=false",
+		"ems.employee.search-index.enabled=false"
+})
+class EmployeeSchemaUpgradeTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Test
+	void createEmployees_afterUpgrade_allocatesIdsPastTheExistingRows() {
+		List<EmployeeDto> employees = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			employees.add(new EmployeeDto(null, "New", "Hire" + i, "new.hire" + i + "@example.com", null));
+		}
+
+		EmployeeBatchResultDto result = employeeService.createEmployees(employees);
+
+		assertThat(result.getCreated()).isEqualTo(600);
+		assertThat(result.getItems())
+				.allSatisfy(item -> assertThat(item.getEmployee().getId()).isGreaterThan(700L));
+		assertThat(employeeService.getEmployeeById(700L).getEmail()).isEqualTo("grace@example.com");
+	}
+
+	@Test
+	void searchEmployees_afterUpgrade_findsRowsWrittenBeforeTheSearchColumns() {
+		assertThat(employeeService.searchEmployees("A", null, 10).getContent())
+				.extracting(EmployeeDto::getEmail)
+				.containsExactly("ada@example.com", "alan@example.com");
+		assertThat(employeeService.searchEmployees("hop", null, 10).getContent())
+				.extracting(EmployeeDto::getEmail)
+				.containsExactly("grace@example.com");
+		// both match on first name and email yet come back once, and the cursor walks past them
+		CursorPageDto<Map<String, Object>> firstPage = employeeService.searchEmployeeFields("a", null, 1, List.of("email"));
+		assertThat(firstPage.getContent()).containsExactly(Map.of("email", "ada@example.com"));
+		assertThat(employeeService.searchEmployeeFields("a", firstPage.getNextCursor(), 1, List.of("email"))
+				.getContent()).containsExactly(Map.of("email", "alan@example.com"));
+	}
+
+	@Test
+	void getAllEmployeeByFirstName_afterUpgrade_findsRowsWrittenBeforeTheSearchColumns() {
+		assertThat(employeeService.getAllEmployeeByFirstName("Grace"))
+				.extracting(EmployeeDto::getEmail)
+				.containsExactly("grace@example.com");
+		// still an exact match, the lower-cased column only narrows it down
+		assertThatThrownBy(() -> employeeService.getAllEmployeeByFirstName("grace"))
+				.isInstanceOf(ResourceNotFoundException.class);
+	}
+}
@@ -0,0 +1,53 @@
+package net.javaguides.ems.admission;
+
+import com.zaxxer.hikari.HikariDataSource;
+import net.javaguides.ems.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The class budgets as shipped in application.properties, against the shipped Hikari pool
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-admission;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"ems.employee.search-index.enabled=false"
+})
+class AdmissionDefaultConfigurationTests {
+
+	@Autowired
+	private AdmissionLimiter admissionLimiter;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void sheddableWork_cannotHoldMoreThanAQuarterOfThePool() throws SQLException {
+		int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+		int sheddableLimit = admissionLimiter.getClassLimit(RequestPriority.SHEDDABLE);
+		assertThat(sheddableLimit).isLessThanOrEqualTo(poolSize / 4);
+
+		List<AdmissionLimiter.Permit> permits = new ArrayList<>();
+		for (int i = 0; i < sheddableLimit; i++) {
+			permits.add(admissionLimiter.acquire(i % 2 == 0 ? "getAllEmployees" : "exportEmployees",
+					RequestPriority.SHEDDABLE));
+		}
+		assertThatThrownBy(() -> admissionLimiter.acquire("createEmployees", RequestPriority.SHEDDABLE))
+				.isInstanceOf(ServiceUnavailableException.class);
+		// while the rest of the pool is still there for point reads
+		for (int i = 0; i < poolSize - sheddableLimit; i++) {
+			permits.add(admissionLimiter.acquire("default-config-" + i, RequestPriority.CRITICAL));
+		}
+		permits.forEach(AdmissionLimiter.Permit::release);
+	}
+}
@@ -0,0 +1,119 @@
+package net.javaguides.ems.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.javaguides.ems.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Single-threaded with a hand-moved clock and no waiting, so every admission decision is deterministic.
+class AdmissionLimiterTests {
+
+	private static final long MILLIS = 1_000_000L;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicLong now = new AtomicLong();
+
+	@Test
+	void sheddableWork_onlyGetsItsShareOfTheGlobalLimit() {
+		AdmissionLimiter limiter = limiter(10, 10);
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire("getAllEmployees", RequestPriority.SHEDDABLE);
+		}
+
+		assertThatThrownBy(() -> limiter.acquire("exportEmployees", RequestPriority.SHEDDABLE))
+				.isInstanceOf(ServiceUnavailableException.class)
+				.extracting(e -> ((ServiceUnavailableException) e).getRetryAfter())
+				.isEqualTo(Duration.ofSeconds(1));
+		// the remaining half is still there for point reads
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire("getEmployeeById", RequestPriority.CRITICAL);
+		}
+		assertThat(limiter.getGlobalInFlight()).isEqualTo(10);
+		assertThat(meterRegistry.get("ems.admission.requests")
+				.tags("endpoint", "exportEmployees", "result", "rejected").functionCounter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void endpointLimit_rejectsOnceReachedAndAdmitsAgainAfterRelease() {
+		AdmissionLimiter limiter = limiter(40, 2);
+		AdmissionLimiter.Permit first = limiter.acquire("getEmployeeById", RequestPriority.CRITICAL);
+		limiter.acquire("getEmployeeById", RequestPriority.CRITICAL);
+
+		assertThatThrownBy(() -> limiter.acquire("getEmployeeById", RequestPriority.CRITICAL))
+				.isInstanceOf(ServiceUnavailableException.class);
+		first.release();
+		first.release();
+		limiter.acquire("getEmployeeById", RequestPriority.CRITICAL);
+		assertThat(limiter.getLimit("getEmployeeById").getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void limit_growsWhileLatencyHoldsAndBacksOffWhenItRises() {
+		AdmissionLimiter limiter = limiter(40, 10);
+		for (int round = 0; round < 20; round++) {
+			completeConcurrently(limiter, 10, 5);
+		}
+		double grown = limiter.getLimit("getAllEmployees").getLimit();
+		assertThat(grown).isGreaterThan(10);
+
+		completeConcurrently(limiter, 1, 50);
+		assertThat(limiter.getLimit("getAllEmployees").getLimit()).isLessThan(grown);
+	}
+
+	@Test
+	void slowSamples_doNotRaiseTheBaselineTheyAreJudgedBy() {
+		AdmissionLimiter limiter = limiter(40, 10);
+		for (int round = 0; round < 20; round++) {
+			completeConcurrently(limiter, 10, 5);
+		}
+		AdaptiveConcurrencyLimit limit = limiter.getLimit("getAllEmployees");
+		assertThat(limit.getBaselineNanos()).isEqualTo(5 * MILLIS);
+
+		// sustained overload: every round is slow, and stays slow, until the limit is all the way down
+		while (limit.getLimit() > 1) {
+			completeConcurrently(limiter, 1, 50);
+			assertThat(limit.getBaselineNanos()).isEqualTo(5 * MILLIS);
+		}
+		// at the minimum the latency is what the endpoint costs alone, and the baseline starts to follow it
+		completeConcurrently(limiter, 1, 50);
+		assertThat(limit.getBaselineNanos()).isGreaterThan(5 * MILLIS);
+	}
+
+	@Test
+	void nonAdaptiveEndpoint_keepsItsLimitWhateverItsLatency() {
+		AdmissionLimiter limiter = limiter(40, 10);
+		for (long latencyMillis : new long[]{5, 5_000, 60_000, 5}) {
+			AdmissionLimiter.Permit permit = limiter.acquire("exportEmployees", RequestPriority.SHEDDABLE, false);
+			now.addAndGet(latencyMillis * MILLIS);
+			permit.release();
+		}
+
+		AdaptiveConcurrencyLimit limit = limiter.getLimit("exportEmployees");
+		assertThat(limit.isAdaptive()).isFalse();
+		assertThat(limit.getLimit()).isEqualTo(10);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	private void completeConcurrently(AdmissionLimiter limiter, int requests, long latencyMillis) {
+		List<AdmissionLimiter.Permit> permits = new ArrayList<>();
+		for (int i = 0; i < requests; i++) {
+			permits.add(limiter.acquire("getAllEmployees", RequestPriority.NORMAL));
+		}
+		now.addAndGet(latencyMillis * MILLIS);
+		permits.forEach(AdmissionLimiter.Permit::release);
+	}
+
+	private AdmissionLimiter limiter(int globalLimit, int initialLimit) {
+		return new AdmissionLimiter(meterRegistry, now::get, globalLimit, globalLimit, initialLimit, 1, 2.0,
+				Map.of(), Duration.ofSeconds(1));
+	}
+}
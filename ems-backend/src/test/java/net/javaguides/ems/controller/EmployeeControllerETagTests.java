@@ -0,0 +1,82 @@
+package net.javaguides.ems.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-etags;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		// the JCache manager behind the second-level cache is shared by every context in the JVM, and ids repeat
+		// across the in-memory databases
+		"spring.jpa.properties.hibernate.cache.region_prefix=ems-etags",
+		"ems.employee.search-index.enabled=false"
+})
+@AutoConfigureMockMvc
+class EmployeeControllerETagTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void put_isConditionalOnlyWithIfMatch() throws Exception {
+		String email = UUID.randomUUID() + "@example.com";
+		String id = create(email);
+
+		// a stale version in the body no longer turns the update into a conditional one
+		mockMvc.perform(put("/api/employees/" + id).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"firstName\":\"Ada\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\",\"version\":7}"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+				.andExpect(jsonPath("$.version").value(1));
+		mockMvc.perform(put("/api/employees/" + id).header(HttpHeaders.IF_MATCH, "\"0\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"firstName\":\"Ada\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\"}"))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(put("/api/employees/" + id).header(HttpHeaders.IF_MATCH, "\"1\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"firstName\":\"Augusta\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\"}"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+	}
+
+	@Test
+	void getWithFields_carriesTheETagAndAnswersIfNoneMatch() throws Exception {
+		String id = create(UUID.randomUUID() + "@example.com");
+
+		mockMvc.perform(get("/api/employees/" + id).param("fields", "email"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+				.andExpect(jsonPath("$.version").doesNotExist());
+		mockMvc.perform(get("/api/employees/" + id).param("fields", "email,version"))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+				.andExpect(jsonPath("$.version").value(0));
+		mockMvc.perform(get("/api/employees/" + id).param("fields", "email")
+						.header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+				.andExpect(status().isNotModified());
+	}
+
+	private String create(String email) throws Exception {
+		String created = mockMvc.perform(post("/api/employees").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"firstName\":\"Grace\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\"}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return created.replaceAll(".*\"id\":(\\d+).*", "$1");
+	}
+}
@@ -0,0 +1,253 @@
+package net.javaguides.ems.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-controller;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		// the JCache manager behind the second-level cache is shared by every context in the JVM, and ids repeat
+		// across the in-memory databases
+		"spring.jpa.properties.hibernate.cache.region_prefix=ems-controller",
+		"ems.employee.search-index.enabled=false"
+})
+@AutoConfigureMockMvc
+class EmployeeControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void put_validatesLikeCreateAndAnswersDuplicateEmailWithConflict() throws Exception {
+		String email = UUID.randomUUID() + "@example.com";
+		String taken = UUID.randomUUID() + "@example.com";
+		String id = create("Grace", email);
+		create("Ada", taken);
+
+		replace(id, "{\"firstName\":\"Grace\",\"lastName\":\"Hopper\"}", 400);
+		replace(id, "{\"firstName\":\"Grace\",\"lastName\":\"Hopper\",\"email\":\" \"}", 400);
+		replace(id, "{\"firstName\":\"" + "x".repeat(256) + "\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\"}", 400);
+
+		double duplicatesBefore = duplicateEmails();
+		replace(id, "{\"firstName\":\"Grace\",\"lastName\":\"Hopper\",\"email\":\"" + taken + "\"}", 409);
+		assertThat(duplicateEmails()).isEqualTo(duplicatesBefore + 1);
+
+		mockMvc.perform(get("/api/employees/" + id))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email").value(email))
+				.andExpect(jsonPath("$.version").value(0));
+	}
+
+	@Test
+	void put_nonAsciiNamesAreFoundBySearchAndFirstName() throws Exception {
+		String email = "Ødegård." + UUID.randomUUID() + "@example.com";
+		String id = create("Grace", UUID.randomUUID() + "@example.com");
+
+		// the search columns are lower-cased in Java with Locale.ROOT, as the search query is; İ becomes i + U+0307
+		replace(id, "{\"firstName\":\"İrem\",\"lastName\":\"ÆRØSKØBING\",\"email\":\"" + email + "\"}", 200);
+
+		mockMvc.perform(get("/api/employees/search").param("q", "İRE"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[?(@.id == " + id + ")].firstName").value("İrem"));
+		mockMvc.perform(get("/api/employees/search").param("q", "ærøsk"))
+				.andExpect(jsonPath("$.content[?(@.id == " + id + ")].lastName").value("ÆRØSKØBING"));
+		mockMvc.perform(get("/api/employees/search").param("q", "ødegÅrd."))
+				.andExpect(jsonPath("$.content[?(@.id == " + id + ")].email").value(email));
+		mockMvc.perform(get("/api/employees/firstName/İrem"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.id == " + id + ")].email").value(email));
+	}
+
+	@Test
+	void batchCreate_reportsEachItemAndCountsDuplicateEmails() throws Exception {
+		String existing = "Existing." + UUID.randomUUID() + "@example.com";
+		String fresh = UUID.randomUUID() + "@example.com";
+		create("Grace", existing);
+
+		double duplicatesBefore = duplicateEmails();
+		mockMvc.perform(post("/api/employees/batch").contentType(MediaType.APPLICATION_JSON).content("["
+						+ "{\"firstName\":\"Ada\",\"email\":\"" + fresh + "\"},"
+						+ "{\"firstName\":\"Alan\",\"email\":\"" + fresh.toUpperCase() + "\"},"
+						+ "{\"firstName\":\"Barbara\",\"email\":\"" + existing.toLowerCase() + "\"},"
+						+ "{\"firstName\":\"Edsger\"}]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.created").value(1))
+				.andExpect(jsonPath("$.rejected").value(3))
+				.andExpect(jsonPath("$.items[0].index").value(0))
+				.andExpect(jsonPath("$.items[0].created").value(true))
+				.andExpect(jsonPath("$.items[0].employee.email").value(fresh))
+				.andExpect(jsonPath("$.items[0].employee.version").value(0))
+				// the second spelling of an email in the same batch loses
+				.andExpect(jsonPath("$.items[1].created").value(false))
+				.andExpect(jsonPath("$.items[1].error").value("Email already exists: " + fresh.toUpperCase()))
+				// taken by a stored employee, compared case-insensitively
+				.andExpect(jsonPath("$.items[2].created").value(false))
+				.andExpect(jsonPath("$.items[2].error").value("Email already exists: " + existing.toLowerCase()))
+				.andExpect(jsonPath("$.items[3].created").value(false))
+				.andExpect(jsonPath("$.items[3].error").value("Email is required"));
+		assertThat(duplicateEmails()).isEqualTo(duplicatesBefore + 2);
+	}
+
+	@Test
+	void keysetPages_continueFromTheCursorAcrossInsertsAndEndWithoutOne() throws Exception {
+		long first = Long.parseLong(create("Page", UUID.randomUUID() + "@example.com"));
+		long second = Long.parseLong(create("Page", UUID.randomUUID() + "@example.com"));
+		long third = Long.parseLong(create("Page", UUID.randomUUID() + "@example.com"));
+
+		mockMvc.perform(get("/api/employees").param("limit", "2").param("after", Long.toString(first - 1)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[*].id").value(contains((int) first, (int) second)))
+				.andExpect(jsonPath("$.nextCursor").value(second));
+
+		// rows inserted after the first page was read neither shift nor repeat what the cursor points past
+		long inserted = Long.parseLong(create("Page", UUID.randomUUID() + "@example.com"));
+		mockMvc.perform(get("/api/employees").param("limit", "2").param("after", Long.toString(second)))
+				.andExpect(jsonPath("$.content[*].id").value(contains((int) third, (int) inserted)))
+				// the last page carries no cursor
+				.andExpect(jsonPath("$.nextCursor").value(nullValue()));
+		mockMvc.perform(get("/api/employees").param("limit", "2").param("after", Long.toString(inserted)))
+				.andExpect(jsonPath("$.content").isEmpty())
+				.andExpect(jsonPath("$.nextCursor").value(nullValue()));
+	}
+
+	@Test
+	void export_writesOneJsonObjectPerLine() throws Exception {
+		String email = "Export." + UUID.randomUUID() + "@example.com";
+		String id = create("Export", email);
+
+		MvcResult started = mockMvc.perform(get("/api/employees/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
+
+		// every record, the last one included, ends with a newline; no array brackets or separators
+		assertThat(body).endsWith("\n").doesNotStartWith("[");
+		List<String> lines = List.of(body.split("\n"));
+		assertThat(lines).allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}").doesNotContain("\n"));
+		List<JsonNode> employees = new ArrayList<>();
+		for (String line : lines) {
+			employees.add(objectMapper.readTree(line));
+		}
+		assertThat(employees).anySatisfy(employee -> {
+			assertThat(employee.get("id").asText()).isEqualTo(id);
+			assertThat(employee.get("email").asText()).isEqualTo(email);
+			assertThat(employee.get("version").asLong()).isZero();
+		});
+		// exported in id order
+		assertThat(employees).extracting(employee -> employee.get("id").asLong()).isSorted();
+	}
+
+	@Test
+	void fields_rejectsUnknownNamesAndDropsAnUnrequestedId() throws Exception {
+		String email = "Fields." + UUID.randomUUID() + "@example.com";
+		String id = create("Fields", email);
+
+		mockMvc.perform(get("/api/employees/" + id).param("fields", "email,salary"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/employees").param("fields", "email,salary"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/employees").param("fields", " , "))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/employees/" + id).param("fields", "email"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email").value(email))
+				.andExpect(jsonPath("$.id").doesNotExist())
+				.andExpect(jsonPath("$.firstName").doesNotExist());
+		mockMvc.perform(get("/api/employees/" + id).param("fields", "id,email"))
+				.andExpect(jsonPath("$.id").value(Long.parseLong(id)))
+				.andExpect(jsonPath("$.email").value(email));
+		// paging still keys on the id, it just is not returned unless asked for
+		mockMvc.perform(get("/api/employees").param("fields", "email").param("limit", "1")
+						.param("after", Long.toString(Long.parseLong(id) - 1)))
+				.andExpect(jsonPath("$.content[0].email").value(email))
+				.andExpect(jsonPath("$.content[0].id").doesNotExist());
+	}
+
+	@Test
+	void patch_nullClearsAFieldButNotTheEmailAndANoOpKeepsTheETag() throws Exception {
+		String email = "Patch." + UUID.randomUUID() + "@example.com";
+		String id = create("Patch", email);
+
+		mockMvc.perform(patch(id, "{\"lastName\":null}"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+				.andExpect(jsonPath("$.firstName").value("Patch"))
+				.andExpect(jsonPath("$.lastName").doesNotExist())
+				.andExpect(jsonPath("$.version").value(1));
+		mockMvc.perform(patch(id, "{\"email\":null}"))
+				.andExpect(status().isBadRequest());
+
+		// same values again: no UPDATE, so the version and the ETag stay as they were
+		mockMvc.perform(patch(id, "{\"firstName\":\"Patch\",\"lastName\":null}").header(HttpHeaders.IF_MATCH, "\"1\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+		mockMvc.perform(get("/api/employees/" + id))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+				.andExpect(jsonPath("$.email").value(email))
+				.andExpect(jsonPath("$.lastName").doesNotExist());
+	}
+
+	private static MockHttpServletRequestBuilder patch(String id, String body) {
+		return MockMvcRequestBuilders.patch("/api/employees/" + id)
+				.contentType(MediaType.parseMediaType("application/merge-patch+json"))
+				.content(body);
+	}
+
+	private void replace(String id, String body, int expectedStatus) throws Exception {
+		mockMvc.perform(put("/api/employees/" + id).contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().is(expectedStatus));
+	}
+
+	private double duplicateEmails() {
+		return meterRegistry.get("ems.employee.outcomes").tag("outcome", "duplicate_email").counter().count();
+	}
+
+	private String create(String firstName, String email) throws Exception {
+		String created = mockMvc.perform(post("/api/employees").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"firstName\":\"" + firstName + "\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\"}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return created.replaceAll(".*\"id\":(\\d+).*", "$1");
+	}
+}
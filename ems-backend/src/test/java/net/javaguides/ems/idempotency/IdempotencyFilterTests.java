@@ -0,0 +1,285 @@
+package net.javaguides.ems.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import net.javaguides.ems.repository.EmployeeRepository;
+import net.javaguides.ems.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-idempotency;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		// the JCache manager behind the second-level cache is shared by every context in the JVM, and ids repeat
+		// across the in-memory databases
+		"spring.jpa.properties.hibernate.cache.region_prefix=ems-idempotency",
+		"ems.employee.search-index.enabled=false"
+})
+@AutoConfigureMockMvc
+class IdempotencyFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+
+	@Test
+	void retriedCreate_replaysTheFirstResponseWithoutCreatingAgain() throws Exception {
+		String key = UUID.randomUUID().toString();
+		String body = employeeJson(key + "@example.com");
+		long before = employeeRepository.count();
+
+		MvcResult first = mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andReturn();
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true"))
+				.andExpect(header().string("ETag", first.getResponse().getHeader("ETag")))
+				.andExpect(content().json(first.getResponse().getContentAsString(), JsonCompareMode.STRICT));
+
+		assertThat(employeeRepository.count()).isEqualTo(before + 1);
+	}
+
+	@Test
+	void reusedKeyWithAnotherBody_isRejected() throws Exception {
+		String key = UUID.randomUUID().toString();
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).content(employeeJson(key + "@example.com")))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).content(employeeJson("other-" + key + "@example.com")))
+				.andExpect(status().isUnprocessableEntity())
+				.andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON));
+	}
+
+	@Test
+	void reusedKeyWithAnotherAcceptOrContentType_isRejected() throws Exception {
+		String key = UUID.randomUUID().toString();
+		String body = employeeJson(key + "@example.com");
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_XML).content(body))
+				.andExpect(status().isUnprocessableEntity());
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.TEXT_PLAIN).accept(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isUnprocessableEntity());
+		mockMvc.perform(post("/api/employees").header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+						.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true"));
+	}
+
+	@Test
+	void retriedUpdate_doesNotBumpTheVersionAgain() throws Exception {
+		String email = UUID.randomUUID() + "@example.com";
+		String created = mockMvc.perform(post("/api/employees")
+						.contentType(MediaType.APPLICATION_JSON).content(employeeJson(email)))
+				.andReturn().getResponse().getContentAsString();
+		Long id = Long.valueOf(created.replaceAll(".*\"id\":(\\d+).*", "$1"));
+		String key = UUID.randomUUID().toString();
+
+		for (int attempt = 0; attempt < 2; attempt++) {
+			mockMvc.perform(put("/api/employees/" + id).header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content("{\"firstName\":\"Grace\",\"lastName\":\"Hopper\",\"email\":\"" + email + "\"}"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.firstName").value("Grace"));
+		}
+		assertThat(employeeRepository.findById(id).orElseThrow().getVersion()).isEqualTo(1L);
+	}
+
+	@Test
+	void jdbcStore_claimsAKeyOnceUntilItIsReleased() {
+		JdbcIdempotencyStore store = new JdbcIdempotencyStore(idempotencyKeyRepository, Duration.ofMinutes(1),
+				Duration.ofMinutes(1), Clock.systemUTC());
+		String key = UUID.randomUUID().toString();
+
+		assertThat(store.reserve(key, "a", "first")).isNull();
+		IdempotentResponse inFlight = store.reserve(key, "a", "second");
+		assertThat(inFlight.completed()).isFalse();
+
+		store.complete(key, "first", new IdempotentResponse("a", true, 201, "application/json", "\"0\"", null,
+				new byte[]{1}));
+		IdempotentResponse completed = store.reserve(key, "a", "third");
+		assertThat(completed.completed()).isTrue();
+		assertThat(completed.status()).isEqualTo(201);
+		assertThat(completed.etag()).isEqualTo("\"0\"");
+		assertThat(completed.body()).containsExactly(1);
+
+		// a completed key is kept for the ttl, releasing only gives up a reservation
+		store.release(key, "first");
+		assertThat(store.reserve(key, "a", "fourth").completed()).isTrue();
+
+		String released = UUID.randomUUID().toString();
+		assertThat(store.reserve(released, "a", "first")).isNull();
+		store.release(released, "first");
+		assertThat(store.reserve(released, "b", "second")).isNull();
+	}
+
+	@Test
+	void jdbcStore_letsARetryTakeOverAReservationWhoseLeaseRanOut() {
+		AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-01-01T00:00:00Z"));
+		JdbcIdempotencyStore store = new JdbcIdempotencyStore(idempotencyKeyRepository, Duration.ofHours(24),
+				Duration.ofSeconds(30), fixedAt(now));
+		String key = UUID.randomUUID().toString();
+
+		// the owner died without completing or releasing the key
+		assertThat(store.reserve(key, "a", "first")).isNull();
+		now.set(now.get().plusSeconds(29));
+		assertThat(store.reserve(key, "a", "second").completed()).isFalse();
+
+		now.set(now.get().plusSeconds(2));
+		assertThat(store.reserve(key, "a", "third")).isNull();
+		store.complete(key, "third", new IdempotentResponse("a", true, 201, "application/json", null, null,
+				new byte[]{1}));
+
+		// a completed response is kept for the ttl, not the lease
+		now.set(now.get().plus(Duration.ofHours(23)));
+		assertThat(store.reserve(key, "a", "fourth").completed()).isTrue();
+	}
+
+	@Test
+	void jdbcStore_ignoresTheOwnerThatLostItsLease() {
+		AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-01-01T00:00:00Z"));
+		JdbcIdempotencyStore store = new JdbcIdempotencyStore(idempotencyKeyRepository, Duration.ofHours(24),
+				Duration.ofSeconds(30), fixedAt(now));
+		assertTakeoverIsSafe(store, () -> now.set(now.get().plusSeconds(31)));
+	}
+
+	@Test
+	void inMemoryStore_ignoresTheOwnerThatLostItsLease() {
+		InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, Duration.ofHours(24), Duration.ofMillis(500));
+		// Caffeine reads System.nanoTime, so the lease has to run out for real
+		assertTakeoverIsSafe(store, () -> {
+			try {
+				Thread.sleep(600);
+			} catch (InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+	}
+
+	// the slow request's lease runs out while it is still working, and a retry takes the key over
+	private static void assertTakeoverIsSafe(IdempotencyStore store, Runnable leaseRunsOut) {
+		String key = UUID.randomUUID().toString();
+		assertThat(store.reserve(key, "a", "slow")).isNull();
+		leaseRunsOut.run();
+		assertThat(store.reserve(key, "a", "retry")).isNull();
+
+		// the slow request finishing late neither frees nor answers the retry's key
+		store.release(key, "slow");
+		assertThat(store.reserve(key, "a", "other").completed()).isFalse();
+		store.complete(key, "slow", new IdempotentResponse("a", true, 201, null, null, null, new byte[]{9}));
+		assertThat(store.reserve(key, "a", "other").completed()).isFalse();
+
+		store.complete(key, "retry", new IdempotentResponse("a", true, 201, null, null, null, new byte[]{1}));
+		assertThat(store.reserve(key, "a", "other").body()).containsExactly(1);
+		store.complete(key, "slow", new IdempotentResponse("a", true, 201, null, null, null, new byte[]{9}));
+		assertThat(store.reserve(key, "a", "other").body()).containsExactly(1);
+	}
+
+	private static Clock fixedAt(AtomicReference<Instant> now) {
+		return new Clock() {
+			@Override
+			public ZoneId getZone() {
+				return ZoneOffset.UTC;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return now.get();
+			}
+		};
+	}
+
+	@Test
+	void cachedBody_canBeReadAsynchronously() throws Exception {
+		IdempotencyFilter filter = new IdempotencyFilter(
+				new InMemoryIdempotencyStore(10, Duration.ofMinutes(1), Duration.ofMinutes(1)), new ObjectMapper());
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/employees");
+		request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, UUID.randomUUID().toString());
+		request.setContent("{\"email\":\"ada@example.com\"}".getBytes(StandardCharsets.UTF_8));
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		boolean[] allDataRead = new boolean[1];
+
+		filter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, filteredResponse) -> {
+			ServletInputStream in = filteredRequest.getInputStream();
+			in.setReadListener(new ReadListener() {
+				@Override
+				public void onDataAvailable() throws IOException {
+					byte[] buffer = new byte[4];
+					int n;
+					while (in.isReady() && (n = in.read(buffer)) != -1) {
+						read.write(buffer, 0, n);
+					}
+				}
+
+				@Override
+				public void onAllDataRead() {
+					allDataRead[0] = true;
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					throw new AssertionError(t);
+				}
+			});
+			((HttpServletResponse) filteredResponse).setStatus(201);
+		});
+
+		assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo("{\"email\":\"ada@example.com\"}");
+		assertThat(allDataRead[0]).isTrue();
+	}
+
+	private static String employeeJson(String email) {
+		return "{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"email\":\"" + email + "\"}";
+	}
+}
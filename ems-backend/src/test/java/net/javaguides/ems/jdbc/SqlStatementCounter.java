@@ -0,0 +1,55 @@
+package net.javaguides.ems.jdbc;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Records the JDBC statements the current thread executes; declare it as a bean and the datasource proxy picks
+// it up. A JDBC batch is one round trip and counts as one statement. Use it to pin the statements a service
+// method issues, so an extra SELECT (N+1, a redundant existence check) fails the build:
+//   counter.assertStatements(() -> employeeService.deleteEmployee(id, null), QueryType.DELETE);
+public class SqlStatementCounter implements QueryExecutionListener {
+
+	// set only while statementsDuring runs, so startup and background threads record nothing
+	private final ThreadLocal<List<String>> recording = new ThreadLocal<>();
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		List<String> statements = recording.get();
+		if (statements != null) {
+			statements.add(queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+		}
+	}
+
+	// the statements the action ran on this thread, in order
+	public List<String> statementsDuring(Runnable action) {
+		List<String> statements = new ArrayList<>();
+		recording.set(statements);
+		try {
+			action.run();
+			return statements;
+		} finally {
+			recording.remove();
+		}
+	}
+
+	public void assertStatements(Runnable action, QueryType... expected) {
+		List<String> executed = statementsDuring(action);
+		List<QueryType> types = executed.stream().map(QueryUtils::getQueryType).toList();
+		assertThat(types)
+				.as("statement types of %s", executed)
+				.containsExactly(expected);
+	}
+}
@@ -0,0 +1,173 @@
+package net.javaguides.ems.reactive;
+
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.config.name=ems-reactive",
+		"spring.main.web-application-type=reactive",
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive-ems;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:reactive-schema.sql",
+		"ems.reactive.read-only=false"
+})
+class ReactiveEmsApplicationTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void createReadUpdateDelete() {
+		EmployeeDto created = webTestClient.post().uri("/api/employees")
+				.bodyValue(new EmployeeDto(null, "Ada", "Lovelace", "ada@example.com", null))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectHeader().valueEquals("ETag", "\"0\"")
+				.expectBody(EmployeeDto.class).returnResult().getResponseBody();
+		assertThat(created.getId()).isPositive();
+
+		webTestClient.get().uri("/api/employees/{id}", created.getId())
+				.header("If-None-Match", "\"0\"")
+				.exchange()
+				.expectStatus().isNotModified();
+
+		webTestClient.put().uri("/api/employees/{id}", created.getId())
+				.header("If-Match", "\"0\"")
+				.bodyValue(new EmployeeDto(null, "Ada", "King", "ada@example.com", null))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.lastName").isEqualTo("King").jsonPath("$.version").isEqualTo(1);
+
+		webTestClient.put().uri("/api/employees/{id}", created.getId())
+				.header("If-Match", "\"0\"")
+				.bodyValue(new EmployeeDto(null, "Ada", "Byron", "ada@example.com", null))
+				.exchange()
+				.expectStatus().isEqualTo(412);
+
+		webTestClient.patch().uri("/api/employees/{id}", created.getId())
+				.contentType(MediaType.parseMediaType("application/merge-patch+json"))
+				.bodyValue(Map.of("firstName", "Augusta"))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.firstName").isEqualTo("Augusta").jsonPath("$.lastName").isEqualTo("King");
+		// a null clears the column
+		webTestClient.patch().uri("/api/employees/{id}", created.getId())
+				.contentType(MediaType.parseMediaType("application/merge-patch+json"))
+				.bodyValue("{\"lastName\":null}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.lastName").doesNotExist();
+		webTestClient.get().uri("/api/employees/{id}", created.getId())
+				.exchange()
+				.expectBody().jsonPath("$.lastName").doesNotExist().jsonPath("$.version").isEqualTo(3);
+
+		webTestClient.get().uri("/api/employees/search?q=aug")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.content[0].email").isEqualTo("ada@example.com");
+
+		webTestClient.delete().uri("/api/employees/{id}", created.getId())
+				.exchange()
+				.expectStatus().isOk();
+		webTestClient.get().uri("/api/employees/{id}", created.getId())
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	void put_validatesLikeCreateAndAnswersDuplicateEmailWithConflict() {
+		EmployeeDto created = webTestClient.post().uri("/api/employees")
+				.bodyValue(new EmployeeDto(null, "Grace", "Hopper", "grace@example.com", null))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(EmployeeDto.class).returnResult().getResponseBody();
+		webTestClient.post().uri("/api/employees")
+				.bodyValue(new EmployeeDto(null, "Ada", "Lovelace", "taken@example.com", null))
+				.exchange()
+				.expectStatus().isCreated();
+
+		for (EmployeeDto invalid : List.of(new EmployeeDto(null, "Grace", "Hopper", null, null),
+				new EmployeeDto(null, "Grace", "Hopper", " ", null),
+				new EmployeeDto(null, "x".repeat(256), "Hopper", "grace@example.com", null))) {
+			webTestClient.put().uri("/api/employees/{id}", created.getId())
+					.bodyValue(invalid)
+					.exchange()
+					.expectStatus().isBadRequest();
+		}
+		webTestClient.put().uri("/api/employees/{id}", created.getId())
+				.bodyValue(new EmployeeDto(null, "Grace", "Hopper", "taken@example.com", null))
+				.exchange()
+				.expectStatus().isEqualTo(409);
+		webTestClient.post().uri("/api/employees")
+				.bodyValue(new EmployeeDto(null, "Ada", "Lovelace", "taken@example.com", null))
+				.exchange()
+				.expectStatus().isEqualTo(409);
+
+		webTestClient.get().uri("/api/employees/{id}", created.getId())
+				.exchange()
+				.expectBody().jsonPath("$.email").isEqualTo("grace@example.com").jsonPath("$.version").isEqualTo(0);
+	}
+
+	@Test
+	void batchCreate_spansSeveralIdBlocksAndInsertChunks() {
+		List<EmployeeDto> batch = new ArrayList<>(java.util.stream.IntStream.range(0, 1200)
+				.mapToObj(i -> new EmployeeDto(null, "Bulk" + i, "Row", "bulk" + i + "@example.com", null))
+				.toList());
+		batch.add(new EmployeeDto(null, "Bulk", "Again", "BULK7@example.com", null));
+		EmployeeBatchResultDto result = webTestClient.post().uri("/api/employees/batch")
+				.bodyValue(batch)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(EmployeeBatchResultDto.class).returnResult().getResponseBody();
+
+		assertThat(result.getCreated()).isEqualTo(1200);
+		assertThat(result.getItems().get(1200).getError()).isEqualTo("Email already exists: BULK7@example.com");
+		List<Long> ids = result.getItems().subList(0, 1200).stream().map(item -> item.getEmployee().getId()).toList();
+		assertThat(ids).doesNotHaveDuplicates().allMatch(id -> id > 0);
+		EmployeeDto last = result.getItems().get(1199).getEmployee();
+		webTestClient.get().uri("/api/employees/{id}", last.getId())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.email").isEqualTo("bulk1199@example.com").jsonPath("$.version").isEqualTo(0);
+	}
+
+	@Test
+	void streamsEveryEmployeeWithBackpressure() {
+		List<EmployeeDto> batch = java.util.stream.IntStream.range(0, 50)
+				.mapToObj(i -> new EmployeeDto(null, "First" + i, "Last" + i, "stream" + i + "@example.com", null))
+				.toList();
+		webTestClient.post().uri("/api/employees/batch")
+				.bodyValue(batch)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.created").isEqualTo(50);
+
+		Flux<EmployeeDto> stream = webTestClient.get().uri("/api/employees/export")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(EmployeeDto.class)
+				.getResponseBody()
+				.filter(employee -> employee.getEmail().startsWith("stream"));
+		StepVerifier.create(stream, 10)
+				.expectNextCount(10)
+				.thenRequest(40)
+				.expectNextCount(40)
+				.verifyComplete();
+	}
+}
@@ -0,0 +1,46 @@
+package net.javaguides.ems.reactive;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+// ems-reactive.properties as shipped: the database is shared with the servlet application, so writes are refused
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.config.name=ems-reactive",
+		"spring.main.web-application-type=reactive",
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive-ems-read-only;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:reactive-schema.sql"
+})
+class ReactiveReadOnlyTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void writesAreRefusedAndReadsServed() {
+		webTestClient.post().uri("/api/employees")
+				.bodyValue(new EmployeeDto(null, "Ada", "Lovelace", "ada@example.com", null))
+				.exchange()
+				.expectStatus().isEqualTo(405)
+				.expectHeader().value(HttpHeaders.ALLOW, allow -> org.assertj.core.api.Assertions.assertThat(allow)
+						.contains("GET"));
+		webTestClient.patch().uri("/api/employees/1").bodyValue(Map.of("lastName", "King"))
+				.exchange()
+				.expectStatus().isEqualTo(405);
+		webTestClient.delete().uri("/api/employees/1")
+				.exchange()
+				.expectStatus().isEqualTo(405);
+
+		webTestClient.get().uri("/api/employees/1")
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+}
@@ -0,0 +1,97 @@
+package net.javaguides.ems.search;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The index on its own, against a stub repository; transactions are simulated with TransactionSynchronizationManager.
+class EmployeeTrigramIndexTests {
+
+	private final EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+	private final EmployeeTrigramIndex index = new EmployeeTrigramIndex(employeeRepository, Runnable::run, true);
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void search_ranksByTrigramsSharedAndToleratesTypos() {
+		seed().forEach(index::index);
+
+		assertThat(index.search("kathy", 10)).extracting(EmployeeDto::getId).containsExactly(2L, 1L);
+		assertThat(index.search("kathy", 1)).extracting(EmployeeDto::getId).containsExactly(2L);
+		assertThat(index.search("katherin jonson", 10)).extracting(EmployeeDto::getId).containsExactly(1L);
+		assertThat(index.search("smth", 10)).extracting(EmployeeDto::getId).containsExactly(3L);
+		assertThat(index.search("zzzz", 10)).isEmpty();
+	}
+
+	@Test
+	void updateAndDelete_becomeVisibleOnlyAfterCommit() {
+		seed().forEach(index::index);
+
+		TransactionSynchronizationManager.initSynchronization();
+		index.index(employee(1L, "Christine", "Darden"));
+		index.remove(5L);
+		assertThat(index.search("katherine", 10)).extracting(EmployeeDto::getId).containsExactly(1L);
+		assertThat(index.search("christine darden", 10)).extracting(EmployeeDto::getFirstName)
+				.doesNotContain("Christine");
+		assertThat(index.search("dorothy", 10)).extracting(EmployeeDto::getId).containsExactly(5L);
+
+		commit();
+
+		assertThat(index.search("christine darden", 10)).first()
+				.extracting(EmployeeDto::getId, EmployeeDto::getFirstName).containsExactly(1L, "Christine");
+		assertThat(index.search("katherine", 10)).extracting(EmployeeDto::getFirstName).doesNotContain("Katherine");
+		assertThat(index.search("dorothy", 10)).extracting(EmployeeDto::getId).doesNotContain(5L);
+	}
+
+	@Test
+	void load_keepsWritesThatRacedIt() {
+		// the load reads its page, then an update and a delete commit, then the load applies the stale page
+		when(employeeRepository.findDtosAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+			index.index(employee(1L, "Christine", "Darden"));
+			index.remove(5L);
+			return seed();
+		});
+
+		index.load();
+
+		assertThat(index.isReady()).isTrue();
+		assertThat(index.search("christine darden", 10)).first()
+				.extracting(EmployeeDto::getId, EmployeeDto::getFirstName).containsExactly(1L, "Christine");
+		assertThat(index.search("katherine", 10)).extracting(EmployeeDto::getFirstName).doesNotContain("Katherine");
+		assertThat(index.search("dorothy", 10)).extracting(EmployeeDto::getId).doesNotContain(5L);
+		assertThat(index.search("kathy", 10)).extracting(EmployeeDto::getId).containsExactly(2L);
+	}
+
+	private static List<EmployeeDto> seed() {
+		return List.of(employee(1L, "Katherine", "Johnson"), employee(2L, "Kathy", "Jones"),
+				employee(3L, "Bob", "Smith"), employee(4L, "Mary", "Jackson"), employee(5L, "Dorothy", "Vaughan"));
+	}
+
+	private static void commit() {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		synchronizations.forEach(TransactionSynchronization::afterCommit);
+	}
+
+	private static EmployeeDto employee(Long id, String firstName, String lastName) {
+		return new EmployeeDto(id, firstName, lastName,
+				firstName.toLowerCase() + "." + lastName.toLowerCase() + "@example.com", 0L);
+	}
+}
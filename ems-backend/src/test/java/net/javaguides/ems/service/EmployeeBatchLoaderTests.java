@@ -0,0 +1,68 @@
+package net.javaguides.ems.service;
+
+import net.javaguides.ems.entity.Employee;
+import net.javaguides.ems.repository.EmployeeRepository;
+import net.javaguides.ems.service.impl.EmployeeBatchLoader;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The loader against a stub repository whose queries can be held back or made to fail.
+class EmployeeBatchLoaderTests {
+
+	private final EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+
+	@Test
+	void load_withNoOtherLookupPending_doesNotWaitOutTheWindow() {
+		when(employeeRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(employee(1L)));
+		EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, true, Duration.ofSeconds(30), 100);
+
+		long start = System.nanoTime();
+		Optional<Employee> employee = loader.load(1L);
+
+		assertThat(employee).map(Employee::getId).contains(1L);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+		assertThat(loader.getDispatchedBatchCount()).isEqualTo(1);
+	}
+
+	@Test
+	void load_whenTheQueryThrowsAnError_failsEveryWaiter() throws Exception {
+		CountDownLatch firstQueryStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstQuery = new CountDownLatch(1);
+		when(employeeRepository.findAllByIdIn(anyCollection()))
+				.thenAnswer(invocation -> {
+					// the first lookup runs alone and keeps a query in progress for the others to batch behind
+					firstQueryStarted.countDown();
+					releaseFirstQuery.await();
+					return List.of(employee(1L));
+				})
+				.thenThrow(new AssertionError("connection lost"));
+		EmployeeBatchLoader loader = new EmployeeBatchLoader(employeeRepository, true, Duration.ofMillis(50), 2);
+		CompletableFuture<Optional<Employee>> first = CompletableFuture.supplyAsync(() -> loader.load(1L));
+		assertThat(firstQueryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// the leader waits out the window while the follower fills the batch and runs the failing query
+		CompletableFuture<Optional<Employee>> leader = CompletableFuture.supplyAsync(() -> loader.load(2L));
+		CompletableFuture<Optional<Employee>> follower = CompletableFuture.supplyAsync(() -> loader.load(3L));
+
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+		assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+		releaseFirstQuery.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+	}
+
+	private static Employee employee(Long id) {
+		return new Employee(id, "Ada", "Lovelace", "ada" + id + "@example.com", 0L);
+	}
+}
@@ -0,0 +1,106 @@
+package net.javaguides.ems.service;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.exception.ResourceNotFoundException;
+import net.javaguides.ems.service.impl.EmployeeBatchLoader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+
+// A read that misses while a write is still uncommitted loads the old row; the eviction has to come after the
+// commit, or that old row stays cached until it expires.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-cache-eviction;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cache.type=caffeine",
+		"ems.hibernate.cache.enabled=false",
+		"ems.employee.search-index.enabled=false"
+})
+class EmployeeCacheEvictionTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@MockitoSpyBean
+	private EmployeeBatchLoader employeeBatchLoader;
+
+	@Test
+	void updateEmployee_evictsAfterCommit() {
+		EmployeeDto employee = employeeService.createEmployee(employee("Ada"));
+		Long id = employee.getId();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			employeeService.updateEmployee(id, employee("Grace"), null);
+			// another request reads before the commit and sees the committed row
+			assertThat(CompletableFuture.supplyAsync(() -> employeeService.getEmployeeById(id)).join()
+					.getFirstName()).isEqualTo("Ada");
+		});
+
+		assertThat(employeeService.getEmployeeById(id).getFirstName()).isEqualTo("Grace");
+	}
+
+	@Test
+	void deleteEmployee_evictsAfterCommit() {
+		EmployeeDto employee = employeeService.createEmployee(employee("Alan"));
+		Long id = employee.getId();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			employeeService.deleteEmployee(id, null);
+			assertThat(CompletableFuture.supplyAsync(() -> employeeService.getEmployeeById(id)).join())
+					.isNotNull();
+		});
+
+		assertThatThrownBy(() -> employeeService.getEmployeeById(id))
+				.isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void updateEmployee_evictionWaitsForALoadThatReadTheOldRow() throws Exception {
+		EmployeeDto employee = employeeService.createEmployee(employee("Ada"));
+		Long id = employee.getId();
+		CountDownLatch loaded = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			Object row = invocation.callRealMethod();
+			loaded.countDown();
+			release.await();
+			return row;
+		}).when(employeeBatchLoader).load(id);
+
+		// a miss reads the old row, then stalls before its result reaches the cache
+		CompletableFuture<EmployeeDto> read = CompletableFuture.supplyAsync(() -> employeeService.getEmployeeById(id));
+		assertThat(loaded.await(10, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<EmployeeDto> update = CompletableFuture.supplyAsync(
+				() -> employeeService.updateEmployee(id, employee("Grace"), null));
+		// the write commits and evicts, or waits at the eviction for the stalled load
+		assertThatThrownBy(() -> update.get(500, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+		release.countDown();
+		assertThat(read.get(10, TimeUnit.SECONDS).getFirstName()).isEqualTo("Ada");
+		update.get(10, TimeUnit.SECONDS);
+
+		assertThat(employeeService.getEmployeeById(id).getFirstName()).isEqualTo("Grace");
+	}
+
+	private static EmployeeDto employee(String firstName) {
+		return new EmployeeDto(null, firstName, "Test", UUID.randomUUID() + "@example.com", null);
+	}
+}
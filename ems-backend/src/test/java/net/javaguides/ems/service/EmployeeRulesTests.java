@@ -0,0 +1,62 @@
+package net.javaguides.ems.service;
+
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmployeeRulesTests {
+
+	@Test
+	void likePrefix_escapesWildcardsAndLowerCases() {
+		assertThat(EmployeeRules.toLikePrefix("  Ada_50%! ")).isEqualTo("ada!_50!%!!%");
+		assertThatThrownBy(() -> EmployeeRules.validateSearchQuery(" "))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> EmployeeRules.validateSearchQuery("a".repeat(EmployeeRules.MAX_SEARCH_LENGTH + 1)))
+				.isInstanceOf(InvalidRequestException.class);
+	}
+
+	@Test
+	void batchItems_needAnEmailThatIsNotTakenIgnoringCase() {
+		Set<String> takenEmails = new HashSet<>(Set.of("ada@example.com"));
+
+		assertThat(EmployeeRules.batchItemRejection(new EmployeeDto(null, "Ada", "L", " ", null), takenEmails))
+				.isEqualTo("Email is required");
+		assertThat(EmployeeRules.batchItemRejection(new EmployeeDto(null, "Ada", "L", "ADA@example.com", null), takenEmails))
+				.isEqualTo("Email already exists: ADA@example.com");
+		assertThat(EmployeeRules.batchItemRejection(new EmployeeDto(null, "Alan", "T", "Alan@example.com", null), takenEmails))
+				.isNull();
+		assertThat(takenEmails).contains("alan@example.com");
+		assertThat(EmployeeRules.batchItemRejection(new EmployeeDto(null, "x".repeat(256), "T", "x@example.com", null), takenEmails))
+				.isEqualTo("First name, last name and email may be at most 255 characters");
+	}
+
+	@Test
+	void patchTextAndVersions() {
+		assertThat(EmployeeRules.patchText(Map.entry("lastName", "King"))).isEqualTo("King");
+		assertThatThrownBy(() -> EmployeeRules.patchText(Map.entry("lastName", 7)))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessage("Field 'lastName' must be a string or null");
+		assertThat(EmployeeRules.isStale(null, 3L)).isFalse();
+		assertThat(EmployeeRules.isStale(2L, 3L)).isTrue();
+		assertThat(EmployeeRules.versionAfterWrite(3L)).isEqualTo(4L);
+		assertThat(EmployeeRules.versionAfterWrite(null)).isNull();
+	}
+
+	@Test
+	void toPage_usesTheExtraRowOnlyForTheCursor() {
+		CursorPageDto<Long> page = EmployeeRules.toPage(List.of(1L, 2L, 3L), 2, id -> id);
+
+		assertThat(page.getContent()).containsExactly(1L, 2L);
+		assertThat(page.getNextCursor()).isEqualTo(2L);
+		assertThat(EmployeeRules.toPage(List.of(1L, 2L), 2, id -> id).getNextCursor()).isNull();
+	}
+}
@@ -0,0 +1,67 @@
+package net.javaguides.ems.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.repository.EmployeeRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writes to one employee must leave the second-level cache entries of every other employee in place; a bulk
+// JPQL update or delete would drop the whole region.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-second-level-cache;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		// the JCache manager behind the second-level cache is shared by every context in the JVM, and ids repeat
+		// across the in-memory databases
+		"spring.jpa.properties.hibernate.cache.region_prefix=ems-second-level-cache",
+		"spring.cache.type=none",
+		"ems.hibernate.statistics.enabled=true",
+		"ems.employee.search-index.enabled=false"
+})
+class EmployeeSecondLevelCacheTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void updates_keepOtherEmployeesCached() {
+		EmployeeDto written = employeeService.createEmployee(employee("Ada"));
+		EmployeeDto other = employeeService.createEmployee(employee("Grace"));
+		employeeRepository.findById(other.getId());
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		employeeService.updateEmployee(written.getId(), employee("Augusta"), written.getVersion());
+		employeeService.updateEmployee(written.getId(), employee("Ada"), null);
+		employeeService.patchEmployee(written.getId(), Map.of("lastName", "King"), null);
+
+		statistics.clear();
+		assertThat(employeeRepository.findById(other.getId())).isPresent();
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+		// the written employee's entry carries the new state rather than being dropped
+		assertThat(employeeRepository.findById(written.getId())).get()
+				.satisfies(employee -> assertThat(employee.getLastName()).isEqualTo("King"));
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+	}
+
+	private static EmployeeDto employee(String firstName) {
+		return new EmployeeDto(null, firstName, "Lovelace", UUID.randomUUID() + "@example.com", null);
+	}
+}
@@ -0,0 +1,129 @@
+package net.javaguides.ems.service;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.exception.PreconditionFailedException;
+import net.javaguides.ems.exception.ResourceNotFoundException;
+import net.javaguides.ems.jdbc.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static net.ttddyy.dsproxy.QueryType.DELETE;
+import static net.ttddyy.dsproxy.QueryType.INSERT;
+import static net.ttddyy.dsproxy.QueryType.SELECT;
+import static net.ttddyy.dsproxy.QueryType.UPDATE;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Pins the SQL each EmployeeService method issues. The read-through and second-level caches are off so every
+// call reaches the database; a new statement in any of these paths has to be a deliberate change here.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ems-query-count;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cache.type=none",
+		"ems.hibernate.cache.enabled=false",
+		"ems.employee.search-index.enabled=false"
+})
+@Import(EmployeeServiceQueryCountTests.QueryCountConfiguration.class)
+class EmployeeServiceQueryCountTests {
+
+	@TestConfiguration(proxyBeanMethods = false)
+	static class QueryCountConfiguration {
+
+		@Bean
+		SqlStatementCounter sqlStatementCounter() {
+			return new SqlStatementCounter();
+		}
+	}
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private SqlStatementCounter counter;
+
+	private EmployeeDto employee;
+
+	@BeforeEach
+	void createEmployee() {
+		// two ids, so the pooled optimizer has fetched its first block and the creates below need no sequence call
+		employee = employeeService.createEmployees(List.of(newEmployee(), newEmployee()))
+				.getItems().get(0).getEmployee();
+	}
+
+	@Test
+	void createEmployee_insertsOnce() {
+		counter.assertStatements(() -> employeeService.createEmployee(newEmployee()), INSERT);
+	}
+
+	@Test
+	void createEmployees_checksEmailsOnceAndInsertsInOneBatch() {
+		counter.assertStatements(() -> employeeService.createEmployees(
+				List.of(newEmployee(), newEmployee(), newEmployee())), SELECT, INSERT);
+	}
+
+	@Test
+	void reads_selectOnce() {
+		Long id = employee.getId();
+		counter.assertStatements(() -> employeeService.getEmployeeById(id), SELECT);
+		counter.assertStatements(() -> employeeService.getEmployeesByIds(List.of(id, id + 1)), SELECT);
+		counter.assertStatements(() -> employeeService.getAllEmployees(), SELECT);
+		counter.assertStatements(() -> employeeService.getEmployeesAfter(null, 20), SELECT);
+		counter.assertStatements(() -> employeeService.searchEmployees("Query", null, 20), SELECT);
+		counter.assertStatements(() -> employeeService.searchEmployeeFields("Query", null, 20, List.of("email")), SELECT);
+		counter.assertStatements(() -> employeeService.getEmployeeFieldsById(id, List.of("email")), SELECT);
+		counter.assertStatements(() -> employeeService.getAllEmployeeByFirstName("Query"), SELECT);
+	}
+
+	@Test
+	void getEmployeeById_missingSelectsOnce() {
+		counter.assertStatements(() -> assertThatThrownBy(() -> employeeService.getEmployeeById(-1L))
+				.isInstanceOf(ResourceNotFoundException.class), SELECT);
+	}
+
+	@Test
+	void updateEmployee_loadsOnceAndSkipsNoOpUpdates() {
+		EmployeeDto changed = new EmployeeDto(null, "Changed", "Name", employee.getEmail(), null);
+		counter.assertStatements(() -> employeeService.updateEmployee(employee.getId(), changed, employee.getVersion()),
+				SELECT, UPDATE);
+		// without an expected version the row is read with a lock instead
+		counter.assertStatements(() -> employeeService.updateEmployee(employee.getId(),
+				new EmployeeDto(null, "Changed", "Again", employee.getEmail(), null), null), SELECT, UPDATE);
+		counter.assertStatements(() -> employeeService.updateEmployee(employee.getId(),
+				new EmployeeDto(null, "Changed", "Again", employee.getEmail(), null), null), SELECT);
+	}
+
+	@Test
+	void patchEmployee_loadsOnceAndSkipsNoOpUpdates() {
+		counter.assertStatements(() -> employeeService.patchEmployee(employee.getId(),
+				Map.of("lastName", "Patched"), employee.getVersion()), SELECT, UPDATE);
+		counter.assertStatements(() -> employeeService.patchEmployee(employee.getId(),
+				Map.of("lastName", "Patched"), null), SELECT);
+	}
+
+	@Test
+	void deleteEmployee_deletesWithoutLoading() {
+		counter.assertStatements(() -> employeeService.deleteEmployee(employee.getId(), null), DELETE);
+	}
+
+	@Test
+	void deleteEmployee_staleVersionChecksExistenceOnce() {
+		counter.assertStatements(() -> assertThatThrownBy(() ->
+						employeeService.deleteEmployee(employee.getId(), employee.getVersion() + 1))
+				.isInstanceOf(PreconditionFailedException.class), DELETE, SELECT);
+	}
+
+	private static EmployeeDto newEmployee() {
+		return new EmployeeDto(null, "Query", "Count", UUID.randomUUID() + "@example.com", null);
+	}
+}
@@ -0,0 +1,109 @@
+package net.javaguides.ems.service;
+
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeBatchResultDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.dto.EmployeeIngestionDto;
+import net.javaguides.ems.dto.EmployeeIngestionDto.Status;
+import net.javaguides.ems.exception.InvalidRequestException;
+import net.javaguides.ems.exception.TooManyRequestsException;
+import net.javaguides.ems.service.impl.EmployeeWriteBehindQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The queue against a stub service whose writes can be held back, so "full" and "still queued" are deterministic.
+class EmployeeWriteBehindQueueTests {
+
+	private final EmployeeService employeeService = mock(EmployeeService.class);
+	private final CountDownLatch writeStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseWrites = new CountDownLatch(1);
+	private final List<List<EmployeeDto>> writtenBatches = new ArrayList<>();
+	private EmployeeWriteBehindQueue queue;
+
+	@AfterEach
+	void stopQueue() {
+		releaseWrites.countDown();
+		queue.stop();
+	}
+
+	@Test
+	void submit_answersQueuedAndCompletesWithTheCreatedEmployee() throws InterruptedException {
+		startQueue(10);
+		EmployeeIngestionDto ingestion = queue.submit(employee("ada@example.com"));
+		assertThat(ingestion.getStatus()).isEqualTo(Status.QUEUED);
+
+		releaseWrites.countDown();
+		queue.stop();
+
+		EmployeeIngestionDto status = queue.getStatus(ingestion.getTrackingId());
+		assertThat(status.getStatus()).isEqualTo(Status.CREATED);
+		assertThat(status.getEmployee().getId()).isEqualTo(1L);
+	}
+
+	@Test
+	void submit_rejectsWithRetryAfterWhenTheQueueIsFull() throws InterruptedException {
+		startQueue(1);
+		queue.submit(employee("writing@example.com"));
+		assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		EmployeeIngestionDto waiting = queue.submit(employee("waiting@example.com"));
+
+		assertThatThrownBy(() -> queue.submit(employee("rejected@example.com")))
+				.isInstanceOf(TooManyRequestsException.class)
+				.extracting(e -> ((TooManyRequestsException) e).getRetryAfter())
+				.isEqualTo(Duration.ofSeconds(1));
+		assertThat(queue.getRejectedCount()).isEqualTo(1);
+
+		// stop drains what was accepted before giving up
+		releaseWrites.countDown();
+		queue.stop();
+		assertThat(queue.getStatus(waiting.getTrackingId()).getStatus()).isEqualTo(Status.CREATED);
+		assertThat(writtenBatches).hasSize(2);
+	}
+
+	@Test
+	void submit_rejectsUpFrontWhatASynchronousCreateWouldRefuse() {
+		startQueue(10);
+		assertThatThrownBy(() -> queue.submit(employee(" ")))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> queue.submit(new EmployeeDto(null, "A".repeat(256), "Lovelace", "ada@example.com", null)))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessageContaining("at most 255 characters");
+		assertThat(queue.getAcceptedCount()).isZero();
+	}
+
+	private void startQueue(int capacity) {
+		when(employeeService.createEmployees(anyList())).thenAnswer(invocation -> {
+			List<EmployeeDto> employeeDtos = invocation.getArgument(0);
+			writeStarted.countDown();
+			releaseWrites.await();
+			writtenBatches.add(employeeDtos);
+			List<EmployeeBatchItemDto> items = new ArrayList<>();
+			for (int index = 0; index < employeeDtos.size(); index++) {
+				EmployeeDto employeeDto = employeeDtos.get(index);
+				EmployeeDto saved = new EmployeeDto((long) index + 1, employeeDto.getFirstName(),
+						employeeDto.getLastName(), employeeDto.getEmail(), 0L);
+				items.add(new EmployeeBatchItemDto(index, true, saved, null));
+			}
+			return new EmployeeBatchResultDto(items.size(), 0, items);
+		});
+		queue = new EmployeeWriteBehindQueue(employeeService, true, capacity, 500,
+				Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1), 1000);
+		queue.start();
+	}
+
+	private static EmployeeDto employee(String email) {
+		return new EmployeeDto(null, "Ada", "Lovelace", email, null);
+	}
+}
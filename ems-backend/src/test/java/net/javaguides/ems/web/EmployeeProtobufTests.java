@@ -0,0 +1,119 @@
+package net.javaguides.ems.web;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Round trips through the hand-written codec, plus a decode with protobuf's generic parser so the framing is
+// checked against the wire format itself rather than only against the codec's own reader.
+class EmployeeProtobufTests {
+
+	private static final EmployeeDto ADA = new EmployeeDto(1L, "Ada", "Lovelace", "ada@example.com", 3L);
+	// non-ASCII, including a character outside the BMP, and a long id
+	private static final EmployeeDto ZOE = new EmployeeDto(Long.MAX_VALUE, "Zoë", "Ærøskøbing 😀", "zoë@例え.jp", 0L);
+	// only the email set
+	private static final EmployeeDto SPARSE = new EmployeeDto(null, null, null, "anon@example.com", null);
+
+	@Test
+	void employee_roundTripsWithNullAndNonAsciiFields() throws IOException {
+		for (EmployeeDto employee : List.of(ADA, ZOE, SPARSE)) {
+			byte[] bytes = write(employee);
+
+			assertThat(EmployeeProtobuf.readEmployee(new ByteArrayInputStream(bytes)))
+					.usingRecursiveComparison().isEqualTo(employee);
+			assertFields(UnknownFieldSet.parseFrom(bytes), employee);
+		}
+		// every field null is the empty message
+		assertThat(write(new EmployeeDto())).isEmpty();
+	}
+
+	@Test
+	void employeeList_framesEachEmployeeAsFieldOne() throws IOException {
+		List<EmployeeDto> employees = List.of(ADA, SPARSE, ZOE);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		EmployeeProtobuf.writeEmployees(employees, output);
+		byte[] bytes = output.toByteArray();
+
+		assertThat(EmployeeProtobuf.readEmployees(new ByteArrayInputStream(bytes)))
+				.usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(employees);
+		UnknownFieldSet list = UnknownFieldSet.parseFrom(bytes);
+		assertThat(list.asMap()).containsOnlyKeys(1);
+		assertEmbedded(list.getField(1).getLengthDelimitedList(), employees);
+
+		ByteArrayOutputStream empty = new ByteArrayOutputStream();
+		EmployeeProtobuf.writeEmployees(List.of(), empty);
+		assertThat(empty.toByteArray()).isEmpty();
+	}
+
+	@Test
+	void employeePage_carriesTheCursorOnlyWhenThereIsOne() throws IOException {
+		List<EmployeeDto> content = List.of(ZOE, ADA);
+		byte[] bytes = writePage(new CursorPageDto<>(content, 42L));
+
+		UnknownFieldSet page = UnknownFieldSet.parseFrom(bytes);
+		assertThat(page.asMap()).containsOnlyKeys(1, 2);
+		assertEmbedded(page.getField(1).getLengthDelimitedList(), content);
+		assertThat(page.getField(2).getVarintList()).containsExactly(42L);
+		// the content reads back through the EmployeeList reader, which skips next_cursor
+		assertThat(EmployeeProtobuf.readEmployees(new ByteArrayInputStream(bytes)))
+				.usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(content);
+
+		UnknownFieldSet lastPage = UnknownFieldSet.parseFrom(writePage(new CursorPageDto<>(List.of(SPARSE), null)));
+		assertThat(lastPage.asMap()).containsOnlyKeys(1);
+		assertEmbedded(lastPage.getField(1).getLengthDelimitedList(), List.of(SPARSE));
+	}
+
+	private static void assertEmbedded(List<ByteString> messages, List<EmployeeDto> employees) throws IOException {
+		assertThat(messages).hasSameSizeAs(employees);
+		for (int i = 0; i < employees.size(); i++) {
+			assertFields(UnknownFieldSet.parseFrom(messages.get(i)), employees.get(i));
+		}
+	}
+
+	// field numbers and types as in proto/employee.proto; absent fields must not be on the wire at all
+	private static void assertFields(UnknownFieldSet fields, EmployeeDto employee) {
+		assertVarint(fields, 1, employee.getId());
+		assertString(fields, 2, employee.getFirstName());
+		assertString(fields, 3, employee.getLastName());
+		assertString(fields, 4, employee.getEmail());
+		assertVarint(fields, 5, employee.getVersion());
+		assertThat(fields.asMap().keySet()).allMatch(number -> number >= 1 && number <= 5);
+	}
+
+	private static void assertVarint(UnknownFieldSet fields, int number, Long value) {
+		if (value == null) {
+			assertThat(fields.hasField(number)).isFalse();
+		} else {
+			assertThat(fields.getField(number).getVarintList()).containsExactly(value);
+		}
+	}
+
+	private static void assertString(UnknownFieldSet fields, int number, String value) {
+		if (value == null) {
+			assertThat(fields.hasField(number)).isFalse();
+		} else {
+			assertThat(fields.getField(number).getLengthDelimitedList()).containsExactly(ByteString.copyFromUtf8(value));
+		}
+	}
+
+	private static byte[] write(EmployeeDto employee) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		EmployeeProtobuf.writeEmployee(employee, output);
+		return output.toByteArray();
+	}
+
+	private static byte[] writePage(CursorPageDto<EmployeeDto> page) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		EmployeeProtobuf.writePage(page, output);
+		return output.toByteArray();
+	}
+}
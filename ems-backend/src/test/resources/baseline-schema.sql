@@ -0,0 +1,10 @@
+-- employees as the original IDENTITY mapping left it, with rows already in it
+create table employees (
+    id bigint generated by default as identity primary key,
+    first_name varchar(255),
+    last_name varchar(255),
+    email_id varchar(255) not null unique
+);
+insert into employees (first_name, last_name, email_id) values ('Ada', 'Lovelace', 'ada@example.com');
+insert into employees (first_name, last_name, email_id) values ('Alan', 'Turing', 'alan@example.com');
+insert into employees (id, first_name, last_name, email_id) values (700, 'Grace', 'Hopper', 'grace@example.com');
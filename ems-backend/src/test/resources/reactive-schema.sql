@@ -0,0 +1,12 @@
+-- employees as Hibernate creates it on H2 for the servlet application
+create sequence if not exists employees_seq start with 1 increment by 500;
+create table if not exists employees (
+    id bigint not null primary key,
+    first_name varchar(255),
+    last_name varchar(255),
+    email_id varchar(255) not null unique,
+    first_name_lc varchar(255),
+    last_name_lc varchar(255),
+    email_lc varchar(255),
+    version bigint default 0 not null
+);
@@ -0,0 +1,30 @@
+package net.javaguides.ems.benchmarks;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.entity.Employee;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Deterministic data sets, so every run and every fork measures the same input
+final class EmployeeFixtures {
+
+    private EmployeeFixtures() {
+    }
+
+    static List<EmployeeDto> employeeDtos(int size) {
+        List<EmployeeDto> employeeDtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            employeeDtos.add(new EmployeeDto(i + 1L, "First" + i, "Last" + i, "employee" + i + "@example.com", 0L));
+        }
+        return employeeDtos;
+    }
+
+    static List<Employee> employees(int size) {
+        List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            employees.add(new Employee(i + 1L, "First" + i, "Last" + i, "employee" + i + "@example.com", 0L));
+        }
+        return employees;
+    }
+}
@@ -0,0 +1,106 @@
+package net.javaguides.ems.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.web.EmployeeProtobuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// The /api/employees list body in each negotiable format: encode and decode CPU, encode + gzip CPU (what
+// server.compression adds). The bytes on the wire before and after gzip are printed once per trial, as
+// "Wire size: <format>, <size> employees: ..." in the run output.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeeFormatBenchmark {
+
+    private static final TypeReference<List<EmployeeDto>> EMPLOYEE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<EmployeeDto> employeeDtos;
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        employeeDtos = EmployeeFixtures.employeeDtos(size);
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "protobuf" -> null;
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        if (objectMapper != null) {
+            listWriter = objectMapper.writerFor(EMPLOYEE_LIST);
+            listReader = objectMapper.readerFor(EMPLOYEE_LIST);
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        encode(raw);
+        encoded = raw.toByteArray();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(encoded);
+        }
+        System.out.printf("%nWire size: %s, %d employees: %d bytes, %d bytes gzipped%n",
+                format, size, encoded.length, compressed.size());
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        encode(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void serializeGzip() throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(OutputStream.nullOutputStream())) {
+            encode(gzip);
+        }
+    }
+
+    @Benchmark
+    public List<EmployeeDto> deserialize() throws IOException {
+        return listReader != null
+                ? listReader.readValue(encoded)
+                : EmployeeProtobuf.readEmployees(new ByteArrayInputStream(encoded));
+    }
+
+    private void encode(OutputStream outputStream) throws IOException {
+        if (listWriter != null) {
+            listWriter.writeValue(outputStream, employeeDtos);
+        } else {
+            EmployeeProtobuf.writeEmployees(employeeDtos, outputStream);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package net.javaguides.ems.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import net.javaguides.ems.dto.EmployeeDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// List<EmployeeDto> through an ObjectMapper configured the way Spring MVC configures its own
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeeJsonBenchmark {
+
+    private static final TypeReference<List<EmployeeDto>> EMPLOYEE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private List<EmployeeDto> employeeDtos;
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        listWriter = objectMapper.writerFor(EMPLOYEE_LIST);
+        listReader = objectMapper.readerFor(EMPLOYEE_LIST);
+        employeeDtos = EmployeeFixtures.employeeDtos(size);
+        json = listWriter.writeValueAsBytes(employeeDtos);
+    }
+
+    // streams to a sink like a response body does, so the result array is not part of the measurement
+    @Benchmark
+    public void serializeList() throws IOException {
+        listWriter.writeValue(OutputStream.nullOutputStream(), employeeDtos);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> deserializeList() throws IOException {
+        return listReader.readValue(json);
+    }
+}
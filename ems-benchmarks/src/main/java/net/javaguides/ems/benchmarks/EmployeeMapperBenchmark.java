@@ -0,0 +1,56 @@
+package net.javaguides.ems.benchmarks;
+
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.entity.Employee;
+import net.javaguides.ems.mapper.EmployeeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One operation maps a whole list of `size` rows, as the list endpoints do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeeMapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private List<Employee> employees;
+    private List<EmployeeDto> employeeDtos;
+
+    @Setup
+    public void setUp() {
+        employees = EmployeeFixtures.employees(size);
+        employeeDtos = EmployeeFixtures.employeeDtos(size);
+    }
+
+    @Benchmark
+    public void mapToEmployeeDto(Blackhole blackhole) {
+        for (Employee employee : employees) {
+            blackhole.consume(EmployeeMapper.mapToEmployeeDto(employee));
+        }
+    }
+
+    @Benchmark
+    public void mapToEmployee(Blackhole blackhole) {
+        for (EmployeeDto employeeDto : employeeDtos) {
+            blackhole.consume(EmployeeMapper.mapToEmployee(employeeDto));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.javaguides.ems.benchmarks;
+
+import net.javaguides.ems.EmsBackendApplication;
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// GET /api/employees/{id} for an existing and for a missing id through the embedded Tomcat, to check that a
+// 404 costs about as much as a 200. Caches and the batch loader window are off, so both run one SELECT.
+// Client and server share the JVM, so gc.alloc.rate.norm is the allocation of the whole round trip.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeNotFoundBenchmark {
+
+    private static final int SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        private ConfigurableApplicationContext context;
+        private HttpClient httpClient;
+        private String employeesUrl;
+        private long firstId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(EmsBackendApplication.class)
+                    .logStartupInfo(false)
+                    .run("--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:ems-not-found-benchmark;DB_CLOSE_DELAY=-1",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                            "--spring.jpa.hibernate.ddl-auto=create-drop",
+                            "--spring.cache.type=none",
+                            "--ems.hibernate.cache.enabled=false",
+                            "--ems.employee.batch-loader.enabled=false",
+                            "--ems.employee.search-index.enabled=false",
+                            "--logging.level.root=WARN");
+            List<EmployeeDto> employeeDtos = EmployeeFixtures.employeeDtos(SIZE);
+            employeeDtos.forEach(employeeDto -> employeeDto.setId(null));
+            List<EmployeeBatchItemDto> items = context.getBean(EmployeeService.class)
+                    .createEmployees(employeeDtos)
+                    .getItems();
+            firstId = items.get(0).getEmployee().getId();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            employeesUrl = "http://localhost:" + port + "/api/employees/";
+            httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            httpClient.close();
+            context.close();
+        }
+
+        int get(long id) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(employeesUrl + id))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return response.statusCode();
+        }
+    }
+
+    @Benchmark
+    public int getExisting(Server server) throws IOException, InterruptedException {
+        return server.get(server.firstId + ThreadLocalRandom.current().nextInt(SIZE));
+    }
+
+    // ids past the seeded range, e.g. a scraper walking ids
+    @Benchmark
+    public int getMissing(Server server) throws IOException, InterruptedException {
+        return server.get(server.firstId + SIZE + ThreadLocalRandom.current().nextInt(SIZE));
+    }
+}
@@ -0,0 +1,116 @@
+package net.javaguides.ems.benchmarks;
+
+import net.javaguides.ems.EmsBackendApplication;
+import net.javaguides.ems.dto.CursorPageDto;
+import net.javaguides.ems.dto.EmployeeBatchItemDto;
+import net.javaguides.ems.dto.EmployeeDto;
+import net.javaguides.ems.search.EmployeeTrigramIndex;
+import net.javaguides.ems.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// EmployeeServiceImpl against an in-memory H2 seeded with `size` employees. The Spring cache, the
+// Hibernate second-level cache and the batch loader window are switched off so every call reaches the query.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    private static final int SEED_BATCH = 5000;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000", "50000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void start() throws InterruptedException {
+        context = new SpringApplicationBuilder(EmsBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                // command-line arguments, so they win over application.properties in the ems-backend jar
+                .run("--spring.datasource.url=jdbc:h2:mem:ems-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.cache.type=none",
+                        "--ems.hibernate.cache.enabled=false",
+                        "--ems.employee.batch-loader.enabled=false",
+                        "--logging.level.root=WARN");
+        employeeService = context.getBean(EmployeeService.class);
+        List<EmployeeDto> employeeDtos = EmployeeFixtures.employeeDtos(size);
+        employeeDtos.forEach(employeeDto -> employeeDto.setId(null));
+        for (int from = 0; from < size; from += SEED_BATCH) {
+            List<EmployeeBatchItemDto> items = employeeService
+                    .createEmployees(employeeDtos.subList(from, Math.min(from + SEED_BATCH, size)))
+                    .getItems();
+            if (from == 0) {
+                firstId = items.get(0).getEmployee().getId();
+            }
+        }
+        EmployeeTrigramIndex searchIndex = context.getBean(EmployeeTrigramIndex.class);
+        while (!searchIndex.isReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    // ids are allocated contiguously from one pooled sequence block per batch
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public EmployeeDto getEmployeeById() {
+        return employeeService.getEmployeeById(randomId());
+    }
+
+    @Benchmark
+    public CursorPageDto<EmployeeDto> getEmployeesPage() {
+        return employeeService.getEmployeesAfter(randomId() - 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> getAllEmployees() {
+        return employeeService.getAllEmployees();
+    }
+
+    @Benchmark
+    public CursorPageDto<EmployeeDto> searchEmployees() {
+        return employeeService.searchEmployees("first12", null, 20);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> fuzzySearchEmployees() {
+        return employeeService.fuzzySearchEmployees("frist123", 10);
+    }
+}